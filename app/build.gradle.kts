@@ -29,6 +29,16 @@ android {
         sourceCompatibility = JavaVersion.VERSION_17
         targetCompatibility = JavaVersion.VERSION_17
     }
+    testOptions {
+        // Lets storage tests run on the JVM: Log calls and ContextWrapper do nothing instead of throwing
+        unitTests.isReturnDefaultValues = true
+        // Benchmarks time code rather than check it, so they only run when asked for with -Pbenchmarks
+        unitTests.all {
+            if (!project.hasProperty("benchmarks")) {
+                it.exclude("**/*Benchmark.class")
+            }
+        }
+    }
 }
 
 dependencies {
@@ -0,0 +1,89 @@
+package com.example.git_trial.database;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.NoticeCategory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * SqliteNoticeRepository.applyBatch is all-or-nothing; needs a device for SQLite
+ */
+@RunWith(AndroidJUnit4.class)
+public class SqliteNoticeBatchTest {
+    private SqliteNoticeRepository repository;
+    private Notice kept;
+    private Notice edited;
+    private Notice added;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        repository = SqliteNoticeRepository.getInstance(context);
+        kept = notice("Kept");
+        edited = notice("Original title");
+        added = notice("Added");
+        assertTrue(repository.addNotice(kept));
+        assertTrue(repository.addNotice(edited));
+    }
+
+    @After
+    public void tearDown() {
+        repository.deleteNotice(kept.getNoticeId());
+        repository.deleteNotice(edited.getNoticeId());
+        repository.deleteNotice(added.getNoticeId());
+    }
+
+    @Test
+    public void failedBatch_changesNothing() {
+        int noticeCount = repository.getAllNotices().size();
+
+        // The last mutation targets a notice that does not exist, so the whole batch fails
+        assertFalse(repository.applyBatch(Arrays.asList(
+                NoticeMutation.delete(kept.getNoticeId()),
+                NoticeMutation.add(added),
+                NoticeMutation.update(renamed(edited, "Changed title")),
+                NoticeMutation.update(renamed(notice("Missing"), "Never written")))));
+
+        assertNotNull(repository.getNoticeById(kept.getNoticeId()));
+        assertNull(repository.getNoticeById(added.getNoticeId()));
+        assertEquals("Original title", repository.getNoticeById(edited.getNoticeId()).getTitle());
+        assertEquals(noticeCount, repository.getAllNotices().size());
+    }
+
+    @Test
+    public void appliedBatch_isVisible() {
+        assertTrue(repository.applyBatch(Arrays.asList(
+                NoticeMutation.delete(kept.getNoticeId()),
+                NoticeMutation.add(added),
+                NoticeMutation.update(renamed(edited, "Changed title")))));
+
+        assertNull(repository.getNoticeById(kept.getNoticeId()));
+        assertNotNull(repository.getNoticeById(added.getNoticeId()));
+        assertEquals("Changed title", repository.getNoticeById(edited.getNoticeId()).getTitle());
+    }
+
+    private static Notice notice(String title) {
+        Notice notice = new Notice(title, title + " description", NoticeCategory.COMMON, "teacher1", "John Doe");
+        notice.setDepartment("Computer Science");
+        return notice;
+    }
+
+    private static Notice renamed(Notice notice, String title) {
+        Notice copy = notice(title);
+        copy.setNoticeId(notice.getNoticeId());
+        copy.setCreatedAt(notice.getCreatedAt());
+        return copy;
+    }
+}
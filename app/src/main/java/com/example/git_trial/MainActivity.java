@@ -15,7 +15,10 @@ import androidx.core.view.WindowInsetsCompat;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
 import com.example.git_trial.auth.AuthService;
+import com.example.git_trial.database.DatabaseExecutor;
+import com.example.git_trial.database.NoticeRepositories;
 import com.example.git_trial.model.User;
+import com.example.git_trial.utils.StartupTimings;
 import com.example.git_trial.activities.DashboardActivity;
 import com.example.git_trial.activities.RegisterActivity;
 
@@ -31,8 +34,14 @@ public class MainActivity extends AppCompatActivity {
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_main);
         
-        // Check if user is already logged in
+        // Check if user is already logged in; this only reads the stored session
         authService = AuthService.getInstance(this);
+        
+        // Open, migrate and seed the stores in the background while the first screen shows
+        DatabaseExecutor.read(authService::warmUp);
+        DatabaseExecutor.read(NoticeRepositories.getInstance(this)::warmUp);
+        StartupTimings.mark("main.created");
+        
         if (authService.isLoggedIn()) {
             navigateToDashboard();
             return;
@@ -79,24 +88,20 @@ public class MainActivity extends AppCompatActivity {
         btnLogin.setEnabled(false);
         btnLogin.setText("Logging in...");
         
-        // Simulate network delay and perform authentication
-        new Thread(() -> {
-            User user = authService.login(username, password);
+        // Authenticate off the main thread; login also stores the session
+        DatabaseExecutor.write(this, () -> authService.login(username, password), user -> {
+            btnLogin.setEnabled(true);
+            btnLogin.setText("Login");
             
-            runOnUiThread(() -> {
-                btnLogin.setEnabled(true);
-                btnLogin.setText("Login");
-                
-                if (user != null) {
-                    Toast.makeText(this, "Welcome, " + user.getFullName() + "!", Toast.LENGTH_SHORT).show();
-                    navigateToDashboard();
-                } else {
-                    Toast.makeText(this, "Invalid credentials. Please try again.", Toast.LENGTH_LONG).show();
-                    etPassword.setText("");
-                    etPassword.requestFocus();
-                }
-            });
-        }).start();
+            if (user != null) {
+                Toast.makeText(this, "Welcome, " + user.getFullName() + "!", Toast.LENGTH_SHORT).show();
+                navigateToDashboard();
+            } else {
+                Toast.makeText(this, "Invalid credentials. Please try again.", Toast.LENGTH_LONG).show();
+                etPassword.setText("");
+                etPassword.requestFocus();
+            }
+        });
     }
     
     private void showAdminLoginDialog() {
@@ -14,7 +14,9 @@ import com.google.android.material.slider.Slider;
 import com.google.android.material.textfield.TextInputEditText;
 import com.example.git_trial.R;
 import com.example.git_trial.auth.AuthService;
-import com.example.git_trial.database.NoticeDatabase;
+import com.example.git_trial.database.DatabaseExecutor;
+import com.example.git_trial.database.NoticeRepositories;
+import com.example.git_trial.database.NoticeRepository;
 import com.example.git_trial.model.Notice;
 import com.example.git_trial.model.NoticeCategory;
 import com.example.git_trial.model.User;
@@ -24,17 +26,21 @@ public class AddEditNoticeActivity extends AppCompatActivity {
     public static final String EXTRA_NOTICE = "extra_notice";
     public static final String EXTRA_EDIT_MODE = "extra_edit_mode";
 
-    private TextInputEditText etTitle, etDescription, etSubject;
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private TextInputEditText etTitle, etDescription, etSubject, etExpiryDays;
     private AutoCompleteTextView spinnerCategory, spinnerDepartment;
     private Slider sliderPriority;
     private MaterialButton btnSave, btnCancel, btnAttachFile;
     private MaterialToolbar toolbar;
 
     private AuthService authService;
-    private NoticeDatabase noticeDatabase;
+    private NoticeRepository noticeDatabase;
     private User currentUser;
     private Notice editingNotice;
     private boolean isEditMode = false;
+    // Expiry field text as first shown, so an untouched field keeps the exact expiry time
+    private String initialExpiryDays = "";
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -42,7 +48,7 @@ public class AddEditNoticeActivity extends AppCompatActivity {
         setContentView(R.layout.activity_add_edit_notice);
 
         authService = AuthService.getInstance(this);
-        noticeDatabase = new NoticeDatabase(this);
+        noticeDatabase = NoticeRepositories.getInstance(this);
         currentUser = authService.getCurrentUser();
 
         if (currentUser == null || !authService.canManageNotices()) {
@@ -72,6 +78,7 @@ public class AddEditNoticeActivity extends AppCompatActivity {
         etTitle = findViewById(R.id.etTitle);
         etDescription = findViewById(R.id.etDescription);
         etSubject = findViewById(R.id.etSubject);
+        etExpiryDays = findViewById(R.id.etExpiryDays);
         spinnerCategory = findViewById(R.id.spinnerCategory);
         spinnerDepartment = findViewById(R.id.spinnerDepartment);
         sliderPriority = findViewById(R.id.sliderPriority);
@@ -144,6 +151,12 @@ public class AddEditNoticeActivity extends AppCompatActivity {
         }
         
         sliderPriority.setValue(editingNotice.getPriority());
+
+        if (editingNotice.getExpiresAt() > 0) {
+            long remaining = editingNotice.getExpiresAt() - System.currentTimeMillis();
+            initialExpiryDays = String.valueOf(Math.max(0, (remaining + DAY_MS - 1) / DAY_MS));
+            etExpiryDays.setText(initialExpiryDays);
+        }
     }
 
     private void saveNotice() {
@@ -153,6 +166,7 @@ public class AddEditNoticeActivity extends AppCompatActivity {
         String department = spinnerDepartment.getText().toString();
         String subject = etSubject.getText().toString().trim();
         int priority = (int) sliderPriority.getValue();
+        String expiryDays = etExpiryDays.getText().toString().trim();
 
         // Validation
         if (title.isEmpty()) {
@@ -180,6 +194,20 @@ public class AddEditNoticeActivity extends AppCompatActivity {
             return;
         }
 
+        long expiresAt;
+        if (isEditMode && expiryDays.equals(initialExpiryDays)) {
+            expiresAt = editingNotice.getExpiresAt();
+        } else if (expiryDays.isEmpty()) {
+            expiresAt = 0;
+        } else {
+            int days = Integer.parseInt(expiryDays);
+            if (days <= 0) {
+                etExpiryDays.setError("Please enter at least one day");
+                return;
+            }
+            expiresAt = System.currentTimeMillis() + days * DAY_MS;
+        }
+
         // Convert category string to enum
         NoticeCategory category;
         switch (categoryStr) {
@@ -200,10 +228,8 @@ public class AddEditNoticeActivity extends AppCompatActivity {
         btnSave.setEnabled(false);
         btnSave.setText(isEditMode ? "Updating..." : "Saving...");
 
-        // Create or update notice
-        new Thread(() -> {
-            boolean success;
-            
+        // Create or update notice on the write lane
+        DatabaseExecutor.write(this, () -> {
             if (isEditMode) {
                 // Update existing notice
                 editingNotice.setTitle(title);
@@ -212,32 +238,38 @@ public class AddEditNoticeActivity extends AppCompatActivity {
                 editingNotice.setDepartment(department);
                 editingNotice.setSubject("Subject-Specific".equals(categoryStr) ? subject : null);
                 editingNotice.setPriority(priority);
+                editingNotice.setExpiresAt(expiresAt);
                 editingNotice.updateTimestamp();
                 
-                success = noticeDatabase.updateNotice(editingNotice);
+                return noticeDatabase.updateNotice(editingNotice);
             } else {
                 // Create new notice
                 Notice newNotice = new Notice(title, description, category, currentUser.getUserId(), currentUser.getFullName());
                 newNotice.setDepartment(department);
                 newNotice.setSubject("Subject-Specific".equals(categoryStr) ? subject : null);
                 newNotice.setPriority(priority);
+                newNotice.setExpiresAt(expiresAt);
                 
-                success = noticeDatabase.addNotice(newNotice);
+                return noticeDatabase.addNotice(newNotice);
+            }
+        }, success -> {
+            btnSave.setEnabled(true);
+            btnSave.setText(isEditMode ? "Update Notice" : "Save Notice");
+
+            if (success) {
+                Toast.makeText(this, isEditMode ? "Notice updated successfully!" : "Notice created successfully!", Toast.LENGTH_SHORT).show();
+                setResult(RESULT_OK);
+                finish();
+            } else {
+                Toast.makeText(this, "Failed to " + (isEditMode ? "update" : "save") + " notice. Please try again.", Toast.LENGTH_LONG).show();
             }
+        });
+    }
 
-            runOnUiThread(() -> {
-                btnSave.setEnabled(true);
-                btnSave.setText(isEditMode ? "Update Notice" : "Save Notice");
-
-                if (success) {
-                    Toast.makeText(this, isEditMode ? "Notice updated successfully!" : "Notice created successfully!", Toast.LENGTH_SHORT).show();
-                    setResult(RESULT_OK);
-                    finish();
-                } else {
-                    Toast.makeText(this, "Failed to " + (isEditMode ? "update" : "save") + " notice. Please try again.", Toast.LENGTH_LONG).show();
-                }
-            });
-        }).start();
+    @Override
+    protected void onStop() {
+        super.onStop();
+        DatabaseExecutor.write(noticeDatabase::flush);
     }
 
     @Override
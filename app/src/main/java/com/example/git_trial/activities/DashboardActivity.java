@@ -4,31 +4,45 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.google.android.material.snackbar.Snackbar;
 import com.google.android.material.tabs.TabLayout;
 import com.example.git_trial.MainActivity;
 import com.example.git_trial.R;
 import com.example.git_trial.auth.AuthService;
-import com.example.git_trial.database.NoticeDatabase;
+import com.example.git_trial.database.DatabaseExecutor;
+import com.example.git_trial.database.LiveQuery;
+import com.example.git_trial.database.NoticeQuery;
+import com.example.git_trial.database.NoticeRepositories;
+import com.example.git_trial.database.NoticeRepository;
 import com.example.git_trial.model.Notice;
 import com.example.git_trial.model.NoticeCategory;
 import com.example.git_trial.model.User;
 import com.example.git_trial.adapters.NoticeAdapter;
+import com.example.git_trial.utils.StartupTimings;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class DashboardActivity extends AppCompatActivity implements NoticeAdapter.OnNoticeClickListener {
 
+    // Notices per page, roughly one screenful
+    private static final int PAGE_SIZE = 20;
+    // Fetch the next page when this close to the end of the list
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
     private TextView tvWelcome, tvRoleInfo;
     private TabLayout tabLayout;
     private RecyclerView recyclerNotices;
@@ -36,10 +50,46 @@ public class DashboardActivity extends AppCompatActivity implements NoticeAdapte
     private MaterialToolbar toolbar;
     
     private AuthService authService;
-    private NoticeDatabase noticeDatabase;
+    private NoticeRepository noticeDatabase;
     private User currentUser;
     private NoticeAdapter noticeAdapter;
     private List<Notice> noticeList;
+    // Keeps the list currently shown up to date; null while showing search results
+    private LiveQuery liveQuery;
+    // The previous list stays on screen until the new live query's first page replaces it
+    private boolean awaitingFirstPage;
+    private boolean fullyDrawnReported;
+
+    /**
+     * Mirrors the live query's changes into the adapter, one item notification each
+     */
+    private final LiveQuery.Listener liveQueryListener = new LiveQuery.Listener() {
+        @Override
+        public void onInserted(int position, List<Notice> notices) {
+            if (awaitingFirstPage) {
+                // Diffed against the previous tab's list, so rows both show are kept
+                awaitingFirstPage = false;
+                noticeAdapter.updateNotices(notices);
+                if (!fullyDrawnReported) {
+                    fullyDrawnReported = true;
+                    StartupTimings.mark("dashboard.firstPage");
+                    reportFullyDrawn();
+                }
+            } else {
+                noticeAdapter.insertNotices(position, notices);
+            }
+        }
+
+        @Override
+        public void onChanged(int position, Notice notice) {
+            noticeAdapter.updateNotice(notice, position);
+        }
+
+        @Override
+        public void onRemoved(int position) {
+            noticeAdapter.removeNotice(position);
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -47,7 +97,7 @@ public class DashboardActivity extends AppCompatActivity implements NoticeAdapte
         setContentView(R.layout.activity_dashboard);
 
         authService = AuthService.getInstance(this);
-        noticeDatabase = new NoticeDatabase(this);
+        noticeDatabase = NoticeRepositories.getInstance(this);
         currentUser = authService.getCurrentUser();
 
         if (currentUser == null) {
@@ -63,6 +113,22 @@ public class DashboardActivity extends AppCompatActivity implements NoticeAdapte
         setupRecyclerView();
         setupTabLayout();
         loadNotices();
+        recordFirstFrame();
+    }
+
+    /**
+     * Record when the dashboard first draws; its notices follow once the first page has loaded
+     */
+    private void recordFirstFrame() {
+        View content = findViewById(android.R.id.content);
+        content.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                content.getViewTreeObserver().removeOnPreDrawListener(this);
+                StartupTimings.mark("dashboard.firstFrame");
+                return true;
+            }
+        });
     }
 
     private void initializeViews() {
@@ -103,10 +169,21 @@ public class DashboardActivity extends AppCompatActivity implements NoticeAdapte
 
     private void setupRecyclerView() {
         noticeList = new ArrayList<>();
-        noticeAdapter = new NoticeAdapter(this, noticeList, currentUser);
+        noticeAdapter = new NoticeAdapter(this, noticeList, authService);
         noticeAdapter.setOnNoticeClickListener(this);
-        recyclerNotices.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerNotices.setLayoutManager(layoutManager);
         recyclerNotices.setAdapter(noticeAdapter);
+        recyclerNotices.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && liveQuery != null && liveQuery.hasMore() &&
+                    layoutManager.findLastVisibleItemPosition() >= noticeAdapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    // Adapter changes are not allowed inside a scroll callback
+                    recyclerView.post(() -> loadNextPage());
+                }
+            }
+        });
     }
 
     private void setupTabLayout() {
@@ -124,7 +201,7 @@ public class DashboardActivity extends AppCompatActivity implements NoticeAdapte
             tabLayout.addTab(tabLayout.newTab().setText("My Notices"));
         }
         
-        if (authService.isAdmin()) {
+        if (authService.canViewArchived()) {
             tabLayout.addTab(tabLayout.newTab().setText("Archived"));
         }
 
@@ -143,45 +220,70 @@ public class DashboardActivity extends AppCompatActivity implements NoticeAdapte
     }
 
     private void loadNotices() {
-        List<Notice> allNotices = noticeDatabase.getNoticesForUser(currentUser);
-        noticeList.clear();
-        noticeList.addAll(allNotices);
-        noticeAdapter.notifyDataSetChanged();
+        showLive(NoticeQuery.builder().visibleTo(currentUser).build());
     }
 
     private void filterNoticesByTab(int position) {
-        List<Notice> filteredNotices = new ArrayList<>();
+        NoticeQuery query = null;
         
         switch (position) {
             case 0: // All Notices
-                filteredNotices = noticeDatabase.getNoticesForUser(currentUser);
+                query = NoticeQuery.builder().visibleTo(currentUser).build();
                 break;
             case 1: // Common
-                filteredNotices = noticeDatabase.getNoticesByCategory(NoticeCategory.COMMON);
+                query = NoticeQuery.builder().categories(NoticeCategory.COMMON).build();
                 break;
             case 2: // Department
-                filteredNotices = noticeDatabase.getNoticesByCategory(NoticeCategory.DEPARTMENT);
+                query = NoticeQuery.builder().categories(NoticeCategory.DEPARTMENT).build();
                 break;
             case 3: // Annual
-                filteredNotices = noticeDatabase.getNoticesByCategory(NoticeCategory.ANNUAL);
+                query = NoticeQuery.builder().categories(NoticeCategory.ANNUAL).build();
                 break;
             case 4: // Subject or My Notices (depends on role)
                 if (authService.canManageNotices() && tabLayout.getTabAt(4).getText().equals("My Notices")) {
-                    filteredNotices = noticeDatabase.getNoticesByCreator(currentUser.getUserId());
+                    query = NoticeQuery.builder().createdBy(currentUser.getUserId()).includeArchived(true).build();
                 } else {
-                    filteredNotices = noticeDatabase.getNoticesByCategory(NoticeCategory.SUBJECT_SPECIFIC);
+                    query = NoticeQuery.builder().categories(NoticeCategory.SUBJECT_SPECIFIC).build();
                 }
                 break;
             case 5: // Archived (admin only) or My Notices (teacher)
-                if (authService.isAdmin() && tabLayout.getTabAt(5).getText().equals("Archived")) {
-                    filteredNotices = noticeDatabase.getArchivedNotices();
+                if (authService.canViewArchived() && tabLayout.getTabAt(5).getText().equals("Archived")) {
+                    query = NoticeQuery.builder().archived(true).build();
                 } else if (tabLayout.getTabAt(5).getText().equals("My Notices")) {
-                    filteredNotices = noticeDatabase.getNoticesByCreator(currentUser.getUserId());
+                    query = NoticeQuery.builder().createdBy(currentUser.getUserId()).includeArchived(true).build();
                 }
                 break;
         }
         
-        noticeAdapter.updateNotices(filteredNotices);
+        if (query != null) {
+            showLive(query);
+        } else {
+            stopLiveQuery();
+            noticeAdapter.updateNotices(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Show a list that stays up to date: the first page and every later change
+     * arrive through the live query listener
+     */
+    private void showLive(NoticeQuery query) {
+        stopLiveQuery();
+        awaitingFirstPage = true;
+        liveQuery = noticeDatabase.observe(query, PAGE_SIZE, ContextCompat.getMainExecutor(this), liveQueryListener);
+    }
+
+    private void stopLiveQuery() {
+        if (liveQuery != null) {
+            liveQuery.close();
+            liveQuery = null;
+        }
+    }
+
+    private void loadNextPage() {
+        if (liveQuery != null && liveQuery.hasMore()) {
+            liveQuery.loadMore();
+        }
     }
 
     private void openAddNoticeActivity() {
@@ -193,8 +295,7 @@ public class DashboardActivity extends AppCompatActivity implements NoticeAdapte
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
         if (requestCode == 100 && resultCode == RESULT_OK) {
-            // Refresh notices after adding/editing
-            loadNotices();
+            // The live query has already delivered the change
             Toast.makeText(this, "Notice updated successfully!", Toast.LENGTH_SHORT).show();
         }
     }
@@ -216,10 +317,10 @@ public class DashboardActivity extends AppCompatActivity implements NoticeAdapte
         
         // Show/hide menu items based on permissions
         android.view.Menu menu = popup.getMenu();
-        boolean canEdit = currentUser.getUserId().equals(notice.getCreatedBy()) || authService.isAdmin();
+        boolean canEdit = authService.getSession().canEdit(notice);
         menu.findItem(R.id.action_edit).setVisible(canEdit);
         menu.findItem(R.id.action_delete).setVisible(canEdit);
-        menu.findItem(R.id.action_archive).setVisible(authService.isAdmin());
+        menu.findItem(R.id.action_archive).setVisible(authService.canArchiveNotices());
         
         popup.setOnMenuItemClickListener(item -> {
             int id = item.getItemId();
@@ -258,6 +359,14 @@ public class DashboardActivity extends AppCompatActivity implements NoticeAdapte
         
         tvTitle.setText(notice.getTitle());
         tvDescription.setText(notice.getDescription());
+        if (!notice.isBodyLoaded()) {
+            // Show the preview until the full description has been read
+            DatabaseExecutor.read(this, () -> noticeDatabase.getNoticeBody(notice.getNoticeId()), body -> {
+                if (body != null) {
+                    tvDescription.setText(body);
+                }
+            });
+        }
         tvCategory.setText(notice.getCategory().getDisplayName());
         tvAuthor.setText(notice.getCreatedByName());
         tvDate.setText(com.example.git_trial.utils.DateUtils.formatDateTime(notice.getCreatedAt()));
@@ -276,25 +385,38 @@ public class DashboardActivity extends AppCompatActivity implements NoticeAdapte
     }
 
     private void editNotice(Notice notice) {
-        Intent intent = new Intent(this, AddEditNoticeActivity.class);
-        intent.putExtra(AddEditNoticeActivity.EXTRA_NOTICE, notice);
-        intent.putExtra(AddEditNoticeActivity.EXTRA_EDIT_MODE, true);
-        startActivityForResult(intent, 100);
+        // The list copy may only hold a preview of the description
+        DatabaseExecutor.read(this, () -> noticeDatabase.getFullNotice(notice.getNoticeId()), fullNotice -> {
+            Intent intent = new Intent(this, AddEditNoticeActivity.class);
+            intent.putExtra(AddEditNoticeActivity.EXTRA_NOTICE, fullNotice != null ? fullNotice : notice);
+            intent.putExtra(AddEditNoticeActivity.EXTRA_EDIT_MODE, true);
+            startActivityForResult(intent, 100);
+        });
     }
 
     private void deleteNotice(Notice notice, int position) {
         new AlertDialog.Builder(this)
                 .setTitle("Delete Notice")
-                .setMessage("Are you sure you want to delete \"" + notice.getTitle() + "\"? This action cannot be undone.")
-                .setPositiveButton("Delete", (dialog, which) -> {
-                    boolean success = noticeDatabase.deleteNotice(notice.getNoticeId());
+                .setMessage("Are you sure you want to delete \"" + notice.getTitle() + "\"?")
+                .setPositiveButton("Delete", (dialog, which) -> DatabaseExecutor.write(this,
+                        () -> noticeDatabase.deleteNotice(notice.getNoticeId()), success -> {
                     if (success) {
-                        noticeAdapter.removeNotice(position);
-                        Toast.makeText(this, "Notice deleted successfully", Toast.LENGTH_SHORT).show();
+                        if (liveQuery == null) {
+                            // Search results are not live
+                            noticeAdapter.removeNotice(position);
+                        }
+                        Snackbar.make(recyclerNotices, "Notice deleted", Snackbar.LENGTH_LONG)
+                                .setAction("Undo", v -> DatabaseExecutor.write(this,
+                                        () -> noticeDatabase.restoreNotice(notice.getNoticeId()), restored -> {
+                                    if (restored && liveQuery == null) {
+                                        loadNotices();
+                                    }
+                                }))
+                                .show();
                     } else {
                         Toast.makeText(this, "Failed to delete notice", Toast.LENGTH_SHORT).show();
                     }
-                })
+                }))
                 .setNegativeButton("Cancel", null)
                 .show();
     }
@@ -306,19 +428,18 @@ public class DashboardActivity extends AppCompatActivity implements NoticeAdapte
         new AlertDialog.Builder(this)
                 .setTitle((newArchiveState ? "Archive" : "Unarchive") + " Notice")
                 .setMessage("Are you sure you want to " + action + " \"" + notice.getTitle() + "\"?")
-                .setPositiveButton(newArchiveState ? "Archive" : "Unarchive", (dialog, which) -> {
-                    boolean success = noticeDatabase.archiveNotice(notice.getNoticeId(), newArchiveState);
+                .setPositiveButton(newArchiveState ? "Archive" : "Unarchive", (dialog, which) -> DatabaseExecutor.write(this,
+                        () -> noticeDatabase.archiveNotice(notice.getNoticeId(), newArchiveState), success -> {
                     if (success) {
-                        notice.setArchived(newArchiveState);
-                        noticeAdapter.updateNotice(notice, position);
                         Toast.makeText(this, "Notice " + action + "d successfully", Toast.LENGTH_SHORT).show();
-                        
-                        // Refresh the list to reflect changes
-                        loadNotices();
+                        if (liveQuery == null) {
+                            // Search results are not live
+                            loadNotices();
+                        }
                     } else {
                         Toast.makeText(this, "Failed to " + action + " notice", Toast.LENGTH_SHORT).show();
                     }
-                })
+                }))
                 .setNegativeButton("Cancel", null)
                 .show();
     }
@@ -377,10 +498,18 @@ public class DashboardActivity extends AppCompatActivity implements NoticeAdapte
     }
 
     @Override
-    protected void onResume() {
-        super.onResume();
-        // Refresh notices when returning to dashboard
-        loadNotices();
+    protected void onDestroy() {
+        super.onDestroy();
+        // The live query has kept the list current while other screens were open, so onResume needs no reload
+        stopLiveQuery();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // Write out any coalesced changes before the app may be killed
+        DatabaseExecutor.write(noticeDatabase::flush);
+        DatabaseExecutor.write(authService::flush);
     }
 
     private void showSearchDialog() {
@@ -411,7 +540,12 @@ public class DashboardActivity extends AppCompatActivity implements NoticeAdapte
     }
 
     private void performSearch(String query) {
-        List<Notice> searchResults = noticeDatabase.searchNotices(query, currentUser);
+        DatabaseExecutor.read(this, () -> noticeDatabase.searchNotices(query, currentUser),
+                results -> showSearchResults(query, results));
+    }
+
+    private void showSearchResults(String query, List<Notice> searchResults) {
+        stopLiveQuery();
         noticeAdapter.updateNotices(searchResults);
         
         // Update tab selection to show we're in search mode
@@ -472,7 +606,7 @@ public class DashboardActivity extends AppCompatActivity implements NoticeAdapte
             }
         }
         
-        if (authService.isAdmin()) {
+        if (authService.canViewArchived()) {
             TabLayout.Tab archivedTab = tabLayout.getTabAt(nextIndex);
             if (archivedTab != null) {
                 archivedTab.setText("Archived");
@@ -11,6 +11,7 @@ import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
 import com.example.git_trial.R;
 import com.example.git_trial.auth.AuthService;
+import com.example.git_trial.database.DatabaseExecutor;
 import com.example.git_trial.model.User;
 import com.example.git_trial.model.UserRole;
 
@@ -128,21 +129,23 @@ public class RegisterActivity extends AppCompatActivity {
         btnRegister.setEnabled(false);
         btnRegister.setText("Creating Account...");
 
-        // Simulate network delay and perform registration
-        new Thread(() -> {
-            boolean success = authService.register(newUser);
-
-            runOnUiThread(() -> {
-                btnRegister.setEnabled(true);
-                btnRegister.setText("Register");
-
-                if (success) {
-                    Toast.makeText(this, "Account created successfully! Please login.", Toast.LENGTH_LONG).show();
-                    finish();
-                } else {
-                    Toast.makeText(this, "Registration failed. Username or email may already exist.", Toast.LENGTH_LONG).show();
-                }
-            });
-        }).start();
+        // Register off the main thread
+        DatabaseExecutor.write(this, () -> authService.register(newUser), success -> {
+            btnRegister.setEnabled(true);
+            btnRegister.setText("Register");
+
+            if (success) {
+                Toast.makeText(this, "Account created successfully! Please login.", Toast.LENGTH_LONG).show();
+                finish();
+            } else {
+                Toast.makeText(this, "Registration failed. Username or email may already exist.", Toast.LENGTH_LONG).show();
+            }
+        });
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        DatabaseExecutor.write(authService::flush);
+    }
+}
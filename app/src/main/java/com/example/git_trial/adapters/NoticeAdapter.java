@@ -10,34 +10,70 @@ import android.widget.LinearLayout;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.git_trial.R;
+import com.example.git_trial.auth.AuthService;
+import com.example.git_trial.auth.Session;
+import com.example.git_trial.model.IdGenerator;
 import com.example.git_trial.model.Notice;
 import com.example.git_trial.model.NoticeCategory;
-import com.example.git_trial.model.User;
-import com.example.git_trial.model.UserRole;
 import com.example.git_trial.utils.DateUtils;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
- * Adapter for displaying notices in RecyclerView
+ * Adapter for displaying notices in RecyclerView. Items have stable IDs (the
+ * numeric notice ID). A new list is diffed against the shown one on a
+ * background thread, by notice ID and updatedAt, and only the resulting
+ * insert, move, remove and change events are dispatched; a change carries a
+ * payload naming the parts of the row that differ, so only those views are
+ * rebound. All methods must be called on the main thread.
  */
 public class NoticeAdapter extends RecyclerView.Adapter<NoticeAdapter.NoticeViewHolder> {
     
+    // Change payloads: the parts of a row that need binding again
+    private static final int PART_TEXT = 1;
+    private static final int PART_CATEGORY = 1 << 1;
+    private static final int PART_PRIORITY = 1 << 2;
+    private static final int PART_ATTACHMENTS = 1 << 3;
+    private static final int PART_ARCHIVED = 1 << 4;
+    private static final int ALL_PARTS = PART_TEXT | PART_CATEGORY | PART_PRIORITY | PART_ATTACHMENTS | PART_ARCHIVED;
+    
+    // Archived notices are drawn faded
+    private static final float ARCHIVED_ALPHA = 0.6f;
+    
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snb-notice-diff");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
     private Context context;
     private List<Notice> notices;
-    private User currentUser;
+    private AuthService authService;
     private OnNoticeClickListener clickListener;
+    private final Executor mainExecutor;
+    // The list a background diff is moving to, with any changes made since it was
+    // submitted; null when no diff is running. Changes made meanwhile go here.
+    private List<Notice> pendingNotices;
+    private boolean pendingChanged;
+    private int submissions;
     
     public interface OnNoticeClickListener {
         void onNoticeClick(Notice notice, int position);
         void onNoticeMenuClick(Notice notice, int position, View anchorView);
     }
     
-    public NoticeAdapter(Context context, List<Notice> notices, User currentUser) {
+    public NoticeAdapter(Context context, List<Notice> notices, AuthService authService) {
         this.context = context;
         this.notices = notices;
-        this.currentUser = currentUser;
+        this.authService = authService;
+        this.mainExecutor = ContextCompat.getMainExecutor(context);
+        setHasStableIds(true);
     }
     
     public void setOnNoticeClickListener(OnNoticeClickListener listener) {
@@ -57,11 +93,38 @@ public class NoticeAdapter extends RecyclerView.Adapter<NoticeAdapter.NoticeView
         holder.bind(notice, position);
     }
     
+    /**
+     * Rebind only the parts named by the change payloads, if every payload names some
+     */
+    @Override
+    public void onBindViewHolder(@NonNull NoticeViewHolder holder, int position, @NonNull List<Object> payloads) {
+        int parts = 0;
+        for (Object payload : payloads) {
+            if (!(payload instanceof Integer)) {
+                parts = ALL_PARTS;
+                break;
+            }
+            parts |= (Integer) payload;
+        }
+        if (payloads.isEmpty() || parts == ALL_PARTS) {
+            onBindViewHolder(holder, position);
+        } else {
+            holder.bindParts(notices.get(position), parts);
+        }
+    }
+    
     @Override
     public int getItemCount() {
         return notices.size();
     }
     
+    @Override
+    public long getItemId(int position) {
+        String noticeId = notices.get(position).getNoticeId();
+        long id = IdGenerator.parse(noticeId);
+        return id != IdGenerator.NO_ID ? id : noticeId.hashCode();
+    }
+    
     public class NoticeViewHolder extends RecyclerView.ViewHolder {
         
         private TextView tvCategory, tvDate, tvTitle, tvDescription, tvAuthor, tvSubjectDept, tvAttachmentCount;
@@ -82,16 +145,25 @@ public class NoticeAdapter extends RecyclerView.Adapter<NoticeAdapter.NoticeView
             viewPriority = itemView.findViewById(R.id.viewPriority);
             ivMenu = itemView.findViewById(R.id.ivMenu);
             layoutAttachments = itemView.findViewById(R.id.layoutAttachments);
+            
+            // Set click listeners once; the notice is looked up on click, since rows are rebound in parts and move
+            itemView.setOnClickListener(v -> {
+                int position = getAdapterPosition();
+                if (clickListener != null && position != RecyclerView.NO_POSITION) {
+                    clickListener.onNoticeClick(notices.get(position), position);
+                }
+            });
+            
+            ivMenu.setOnClickListener(v -> {
+                int position = getAdapterPosition();
+                if (clickListener != null && position != RecyclerView.NO_POSITION) {
+                    clickListener.onNoticeMenuClick(notices.get(position), position, v);
+                }
+            });
         }
         
         public void bind(Notice notice, int position) {
-            // Set title and description
-            tvTitle.setText(notice.getTitle());
-            tvDescription.setText(notice.getDescription());
-            
-            // Set category with appropriate color
-            tvCategory.setText(notice.getCategory().getDisplayName().toUpperCase());
-            setCategoryColor(notice.getCategory());
+            bindParts(notice, ALL_PARTS);
             
             // Set date
             tvDate.setText(DateUtils.getTimeAgo(notice.getCreatedAt()));
@@ -99,30 +171,33 @@ public class NoticeAdapter extends RecyclerView.Adapter<NoticeAdapter.NoticeView
             // Set author
             tvAuthor.setText("Created by " + notice.getCreatedByName());
             
-            // Set priority indicator
-            setPriorityColor(notice.getPriority());
-            
-            // Set subject/department info
-            setSubjectDeptInfo(notice);
-            
-            // Set attachments info
-            setAttachmentsInfo(notice);
-            
             // Show menu for notice creators and admins
             showMenuIfAllowed(notice);
-            
-            // Set click listeners
-            itemView.setOnClickListener(v -> {
-                if (clickListener != null) {
-                    clickListener.onNoticeClick(notice, position);
-                }
-            });
-            
-            ivMenu.setOnClickListener(v -> {
-                if (clickListener != null) {
-                    clickListener.onNoticeMenuClick(notice, position, v);
-                }
-            });
+        }
+        
+        /**
+         * Bind the parts of the row that can change when a notice is edited
+         */
+        void bindParts(Notice notice, int parts) {
+            if ((parts & PART_TEXT) != 0) {
+                tvTitle.setText(notice.getTitle());
+                tvDescription.setText(notice.getDescription());
+            }
+            if ((parts & PART_CATEGORY) != 0) {
+                // Category with appropriate color, and subject/department info
+                tvCategory.setText(notice.getCategory().getDisplayName().toUpperCase());
+                setCategoryColor(notice.getCategory());
+                setSubjectDeptInfo(notice);
+            }
+            if ((parts & PART_PRIORITY) != 0) {
+                setPriorityColor(notice.getPriority());
+            }
+            if ((parts & PART_ATTACHMENTS) != 0) {
+                setAttachmentsInfo(notice);
+            }
+            if ((parts & PART_ARCHIVED) != 0) {
+                itemView.setAlpha(notice.isArchived() ? ARCHIVED_ALPHA : 1f);
+            }
         }
         
         private void setCategoryColor(NoticeCategory category) {
@@ -187,40 +262,163 @@ public class NoticeAdapter extends RecyclerView.Adapter<NoticeAdapter.NoticeView
         }
         
         private void showMenuIfAllowed(Notice notice) {
-            // Show menu if user is admin or the creator of the notice
-            boolean canManage = currentUser.getRole() == UserRole.ADMIN || 
-                               notice.getCreatedBy().equals(currentUser.getUserId());
-            ivMenu.setVisibility(canManage ? View.VISIBLE : View.GONE);
+            // Show menu if user is admin or the creator of the notice; the session is read
+            // per row since a login or profile update replaces it
+            Session session = authService.getSession();
+            ivMenu.setVisibility(session != null && session.canEdit(notice) ? View.VISIBLE : View.GONE);
         }
     }
     
     /**
-     * Update the notice list
+     * Show a new notice list. Empty lists on either side are swapped in at
+     * once; otherwise the list is diffed in the background and the changes
+     * are dispatched when the diff is done, unless a newer list came first.
      */
     public void updateNotices(List<Notice> newNotices) {
-        this.notices.clear();
-        this.notices.addAll(newNotices);
-        notifyDataSetChanged();
+        submissions++;
+        if (pendingNotices == null && (notices.isEmpty() || newNotices.isEmpty())) {
+            int removed = notices.size();
+            notices.clear();
+            notifyItemRangeRemoved(0, removed);
+            notices.addAll(newNotices);
+            notifyItemRangeInserted(0, newNotices.size());
+            return;
+        }
+        pendingNotices = new ArrayList<>(newNotices);
+        pendingChanged = false;
+        diff(submissions);
+    }
+    
+    private void diff(int submission) {
+        List<Notice> oldNotices = new ArrayList<>(notices);
+        List<Notice> newNotices = new ArrayList<>(pendingNotices);
+        DIFF_EXECUTOR.execute(() -> {
+            DiffUtil.DiffResult result = DiffUtil.calculateDiff(new NoticeDiffCallback(oldNotices, newNotices));
+            mainExecutor.execute(() -> {
+                if (submission != submissions) {
+                    return;
+                }
+                if (pendingChanged) {
+                    // Changed while diffing; diff again against what it is now
+                    pendingChanged = false;
+                    diff(submission);
+                    return;
+                }
+                pendingNotices = null;
+                notices.clear();
+                notices.addAll(newNotices);
+                result.dispatchUpdatesTo(this);
+            });
+        });
+    }
+    
+    /**
+     * Insert notices at a position, e.g. as reported by a LiveQuery
+     */
+    public void insertNotices(int position, List<Notice> newNotices) {
+        if (pendingNotices != null) {
+            pendingNotices.addAll(position, newNotices);
+            pendingChanged = true;
+        } else if (position >= 0 && position <= notices.size()) {
+            notices.addAll(position, newNotices);
+            notifyItemRangeInserted(position, newNotices.size());
+        }
     }
     
     /**
      * Remove a notice from the list
      */
     public void removeNotice(int position) {
-        if (position >= 0 && position < notices.size()) {
+        if (pendingNotices != null) {
+            pendingNotices.remove(position);
+            pendingChanged = true;
+        } else if (position >= 0 && position < notices.size()) {
             notices.remove(position);
             notifyItemRemoved(position);
-            notifyItemRangeChanged(position, notices.size());
         }
     }
     
     /**
-     * Update a specific notice
+     * Update a specific notice, rebinding only the parts of its row that changed
      */
     public void updateNotice(Notice updatedNotice, int position) {
-        if (position >= 0 && position < notices.size()) {
-            notices.set(position, updatedNotice);
-            notifyItemChanged(position);
+        if (pendingNotices != null) {
+            pendingNotices.set(position, updatedNotice);
+            pendingChanged = true;
+        } else if (position >= 0 && position < notices.size()) {
+            Notice oldNotice = notices.set(position, updatedNotice);
+            notifyItemChanged(position, changedParts(oldNotice, updatedNotice));
+        }
+    }
+    
+    /**
+     * The payload for a changed notice: the parts of its row that differ, or
+     * null to rebind all of it when it was changed in place
+     */
+    private static Object changedParts(Notice oldNotice, Notice newNotice) {
+        if (oldNotice == newNotice) {
+            return null;
+        }
+        int parts = 0;
+        if (!Objects.equals(oldNotice.getTitle(), newNotice.getTitle())
+                || !Objects.equals(oldNotice.getDescription(), newNotice.getDescription())) {
+            parts |= PART_TEXT;
+        }
+        if (oldNotice.getCategory() != newNotice.getCategory()
+                || !Objects.equals(oldNotice.getDepartment(), newNotice.getDepartment())
+                || !Objects.equals(oldNotice.getSubject(), newNotice.getSubject())) {
+            parts |= PART_CATEGORY;
+        }
+        if (oldNotice.getPriority() != newNotice.getPriority()) {
+            parts |= PART_PRIORITY;
+        }
+        if (!Objects.equals(oldNotice.getAttachments(), newNotice.getAttachments())) {
+            parts |= PART_ATTACHMENTS;
+        }
+        if (oldNotice.isArchived() != newNotice.isArchived()) {
+            parts |= PART_ARCHIVED;
+        }
+        return parts;
+    }
+    
+    /**
+     * Notices are the same item if they have the same ID, and unchanged if
+     * they also have the same updatedAt
+     */
+    private static class NoticeDiffCallback extends DiffUtil.Callback {
+        private final List<Notice> oldNotices;
+        private final List<Notice> newNotices;
+        
+        NoticeDiffCallback(List<Notice> oldNotices, List<Notice> newNotices) {
+            this.oldNotices = oldNotices;
+            this.newNotices = newNotices;
+        }
+        
+        @Override
+        public int getOldListSize() {
+            return oldNotices.size();
+        }
+        
+        @Override
+        public int getNewListSize() {
+            return newNotices.size();
+        }
+        
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return oldNotices.get(oldPosition).getNoticeId().equals(newNotices.get(newPosition).getNoticeId());
+        }
+        
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            Notice oldNotice = oldNotices.get(oldPosition);
+            Notice newNotice = newNotices.get(newPosition);
+            return oldNotice.getUpdatedAt() == newNotice.getUpdatedAt() && oldNotice.isArchived() == newNotice.isArchived();
+        }
+        
+        @Override
+        public Object getChangePayload(int oldPosition, int newPosition) {
+            return changedParts(oldNotices.get(oldPosition), newNotices.get(newPosition));
         }
     }
-}
\ No newline at end of file
+}
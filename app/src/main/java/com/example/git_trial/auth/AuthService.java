@@ -4,13 +4,20 @@ import android.content.Context;
 import com.example.git_trial.database.UserDatabase;
 import com.example.git_trial.model.User;
 import com.example.git_trial.model.UserRole;
+import com.example.git_trial.utils.StartupTimings;
 
 /**
- * Authentication service for managing user authentication and sessions
+ * Authentication service for managing user authentication and sessions.
+ * The logged-in user is read from storage once and kept as a Session, so
+ * role and permission checks are a bit test; the session is only replaced
+ * on login, logout and updateCurrentUser.
  */
 public class AuthService {
     private UserDatabase userDatabase;
     private static AuthService instance;
+    private Session session;
+    // Whether session holds the stored login; null then means nobody is logged in
+    private boolean sessionRead;
     
     public AuthService(Context context) {
         this.userDatabase = new UserDatabase(context);
@@ -21,7 +28,9 @@ public class AuthService {
      */
     public static synchronized AuthService getInstance(Context context) {
         if (instance == null) {
+            long start = System.nanoTime();
             instance = new AuthService(context.getApplicationContext());
+            StartupTimings.record("auth.init", start);
         }
         return instance;
     }
@@ -35,7 +44,11 @@ public class AuthService {
             return null;
         }
         
-        return userDatabase.authenticate(username.trim(), password);
+        User user = userDatabase.authenticate(username.trim(), password);
+        if (user != null) {
+            setSession(user);
+        }
+        return user;
     }
     
     /**
@@ -62,17 +75,56 @@ public class AuthService {
     }
     
     /**
-     * Get current logged-in user
+     * Get current logged-in user, as a copy that changes nothing until passed to updateCurrentUser
      */
     public User getCurrentUser() {
-        return userDatabase.getCurrentUser();
+        Session current = getSession();
+        return current != null ? current.getUser() : null;
+    }
+    
+    /**
+     * The current session, or null if nobody is logged in
+     */
+    public synchronized Session getSession() {
+        if (!sessionRead) {
+            session = Session.of(userDatabase.getCurrentUser());
+            sessionRead = true;
+        }
+        return session;
+    }
+    
+    private synchronized void setSession(User user) {
+        session = Session.of(user);
+        sessionRead = true;
+    }
+    
+    /**
+     * Whether the current user has every permission bit given (see Session)
+     */
+    public boolean hasPermission(int permission) {
+        Session current = getSession();
+        return current != null && current.has(permission);
+    }
+    
+    /**
+     * Load the user store now so the first login does not wait for it; run off the main thread
+     */
+    public void warmUp() {
+        userDatabase.warmUp();
+    }
+    
+    /**
+     * Persist pending user changes now; called at lifecycle points such as onStop
+     */
+    public void flush() {
+        userDatabase.flush();
     }
     
     /**
      * Check if user is logged in
      */
     public boolean isLoggedIn() {
-        return getCurrentUser() != null;
+        return getSession() != null;
     }
     
     /**
@@ -80,44 +132,59 @@ public class AuthService {
      */
     public void logout() {
         userDatabase.logout();
+        setSession(null);
     }
     
     /**
      * Check if current user has admin privileges
      */
     public boolean isAdmin() {
-        User currentUser = getCurrentUser();
-        return currentUser != null && currentUser.getRole() == UserRole.ADMIN;
+        Session current = getSession();
+        return current != null && current.getRole() == UserRole.ADMIN;
     }
     
     /**
      * Check if current user is a teacher
      */
     public boolean isTeacher() {
-        User currentUser = getCurrentUser();
-        return currentUser != null && currentUser.getRole() == UserRole.TEACHER;
+        Session current = getSession();
+        return current != null && current.getRole() == UserRole.TEACHER;
     }
     
     /**
      * Check if current user is a student
      */
     public boolean isStudent() {
-        User currentUser = getCurrentUser();
-        return currentUser != null && currentUser.getRole() == UserRole.STUDENT;
+        Session current = getSession();
+        return current != null && current.getRole() == UserRole.STUDENT;
     }
     
     /**
      * Check if current user can manage notices
      */
     public boolean canManageNotices() {
-        return isAdmin() || isTeacher();
+        return hasPermission(Session.MANAGE_NOTICES);
     }
     
     /**
      * Check if user can manage other users
      */
     public boolean canManageUsers() {
-        return isAdmin();
+        return hasPermission(Session.MANAGE_USERS);
+    }
+    
+    /**
+     * Check if user can archive and unarchive notices
+     */
+    public boolean canArchiveNotices() {
+        return hasPermission(Session.ARCHIVE_NOTICES);
+    }
+    
+    /**
+     * Check if user can see archived notices
+     */
+    public boolean canViewArchived() {
+        return hasPermission(Session.VIEW_ARCHIVED);
     }
     
     /**
@@ -127,6 +194,7 @@ public class AuthService {
         boolean success = userDatabase.updateUser(updatedUser);
         if (success) {
             userDatabase.setCurrentUser(updatedUser);
+            setSession(updatedUser);
         }
         return success;
     }
@@ -170,7 +238,7 @@ public class AuthService {
      * Get user database instance for admin operations
      */
     public UserDatabase getUserDatabase() {
-        if (isAdmin()) {
+        if (canManageUsers()) {
             return userDatabase;
         }
         return null;
@@ -0,0 +1,84 @@
+package com.example.git_trial.auth;
+
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.User;
+import com.example.git_trial.model.UserRole;
+
+/**
+ * The logged-in user and what they may do, worked out once when the session
+ * starts. Permissions are bits of one int, so a check is a single AND.
+ * Immutable: it keeps its own copy of the user, and AuthService replaces it
+ * on login, logout and profile updates.
+ */
+public final class Session {
+    /** Create notices, and edit or delete their own */
+    public static final int MANAGE_NOTICES = 1;
+    public static final int MANAGE_USERS = 1 << 1;
+    /** Archive and unarchive any notice */
+    public static final int ARCHIVE_NOTICES = 1 << 2;
+    public static final int VIEW_ARCHIVED = 1 << 3;
+    /** Edit or delete notices created by someone else */
+    public static final int EDIT_ANY_NOTICE = 1 << 4;
+
+    private final User user;
+    private final String userId;
+    private final UserRole role;
+    private final int permissions;
+
+    private Session(User user) {
+        this.user = new User(user);
+        this.userId = user.getUserId();
+        this.role = user.getRole();
+        this.permissions = permissionsOf(role);
+    }
+
+    /**
+     * The session of a user, or null for no user
+     */
+    static Session of(User user) {
+        return user != null ? new Session(user) : null;
+    }
+
+    private static int permissionsOf(UserRole role) {
+        if (role == null) {
+            return 0;
+        }
+        switch (role) {
+            case ADMIN:
+                return MANAGE_NOTICES | MANAGE_USERS | ARCHIVE_NOTICES | VIEW_ARCHIVED | EDIT_ANY_NOTICE;
+            case TEACHER:
+                return MANAGE_NOTICES;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * A copy of the logged-in user; changes to it only take effect through AuthService.updateCurrentUser
+     */
+    public User getUser() {
+        return new User(user);
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+
+    /**
+     * Whether the user has every permission bit given
+     */
+    public boolean has(int permission) {
+        return (permissions & permission) == permission;
+    }
+
+    /**
+     * Whether the user may edit or delete a notice: their own, or any with EDIT_ANY_NOTICE
+     */
+    public boolean canEdit(Notice notice) {
+        return has(EDIT_ANY_NOTICE) || userId.equals(notice.getCreatedBy());
+    }
+}
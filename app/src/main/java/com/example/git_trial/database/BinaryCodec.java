@@ -0,0 +1,301 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.NoticeCategory;
+import com.example.git_trial.model.User;
+import com.example.git_trial.model.UserRole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact versioned binary encoding for notices and users.
+ * Every encoded value starts with a format version byte. Timestamps are
+ * zigzag varints, enums are stored by ordinal, strings are varint
+ * length-prefixed UTF-8 (length 0 means null, otherwise length + 1).
+ * Notice headers come before description and attachments so a filter can
+ * reject a notice without decoding its body.
+ */
+final class BinaryCodec {
+    static final byte NOTICE_VERSION = 2;
+    // Version 1 notices have no expiry time
+    private static final byte NOTICE_VERSION_WITHOUT_EXPIRY = 1;
+    static final byte USER_VERSION = 1;
+    static final byte USER_LIST_VERSION = 1;
+
+    private static final int FLAG_ARCHIVED = 1;
+    private static final int FLAG_ACTIVE = 1;
+
+    private BinaryCodec() {
+    }
+
+    // ---- Notice ----
+
+    static byte[] encodeNotice(Notice notice) {
+        Output out = new Output(128);
+        writeNotice(out, notice);
+        return out.toByteArray();
+    }
+
+    static Notice decodeNotice(byte[] data, int offset, int length, NoticeFilter filter) throws IOException {
+        Input in = new Input(data, offset, length);
+        return readNotice(in, filter);
+    }
+
+    private static void writeNotice(Output out, Notice notice) {
+        out.writeByte(NOTICE_VERSION);
+        out.writeString(notice.getNoticeId());
+        out.writeString(notice.getTitle());
+        out.writeEnum(notice.getCategory());
+        out.writeString(notice.getCreatedBy());
+        out.writeString(notice.getCreatedByName());
+        out.writeSignedVarLong(notice.getCreatedAt());
+        // Updates usually follow creation closely, so store the delta
+        out.writeSignedVarLong(notice.getUpdatedAt() - notice.getCreatedAt());
+        out.writeByte(notice.isArchived() ? FLAG_ARCHIVED : 0);
+        out.writeString(notice.getDepartment());
+        out.writeString(notice.getSubject());
+        out.writeByte(notice.getPriority());
+        out.writeSignedVarLong(notice.getExpiresAt());
+        // Body
+        out.writeString(notice.getDescription());
+        List<String> attachments = notice.getAttachments();
+        if (attachments == null) {
+            out.writeVarInt(0);
+        } else {
+            out.writeVarInt(attachments.size() + 1);
+            for (String attachment : attachments) {
+                out.writeString(attachment);
+            }
+        }
+    }
+
+    private static Notice readNotice(Input in, NoticeFilter filter) throws IOException {
+        int version = in.readByte();
+        if (version != NOTICE_VERSION && version != NOTICE_VERSION_WITHOUT_EXPIRY) {
+            throw new IOException("Unsupported notice format version " + version);
+        }
+        Notice notice = new Notice();
+        notice.setNoticeId(in.readString());
+        notice.setTitle(in.readString());
+        notice.setCategory(in.readEnum(NoticeCategory.values()));
+        notice.setCreatedBy(in.readString());
+        notice.setCreatedByName(in.readString());
+        notice.setCreatedAt(in.readSignedVarLong());
+        notice.setUpdatedAt(notice.getCreatedAt() + in.readSignedVarLong());
+        notice.setArchived((in.readByte() & FLAG_ARCHIVED) != 0);
+        notice.setDepartment(in.readString());
+        notice.setSubject(in.readString());
+        notice.setPriority(in.readByte());
+        if (version != NOTICE_VERSION_WITHOUT_EXPIRY) {
+            notice.setExpiresAt(in.readSignedVarLong());
+        }
+
+        if (filter != null && !filter.accept(notice)) {
+            return null;
+        }
+
+        notice.setDescription(in.readString());
+        int attachmentCount = in.readVarInt();
+        List<String> attachments = new ArrayList<>(Math.max(attachmentCount - 1, 0));
+        for (int i = 0; i < attachmentCount - 1; i++) {
+            attachments.add(in.readString());
+        }
+        notice.setAttachments(attachments);
+        return notice;
+    }
+
+    // ---- User ----
+
+    static byte[] encodeUser(User user) {
+        Output out = new Output(96);
+        writeUser(out, user);
+        return out.toByteArray();
+    }
+
+    static User decodeUser(byte[] data) throws IOException {
+        return readUser(new Input(data, 0, data.length));
+    }
+
+    static byte[] encodeUsers(List<User> users) {
+        Output out = new Output(64 + users.size() * 96);
+        out.writeByte(USER_LIST_VERSION);
+        out.writeVarInt(users.size());
+        for (User user : users) {
+            writeUser(out, user);
+        }
+        return out.toByteArray();
+    }
+
+    static List<User> decodeUsers(byte[] data) throws IOException {
+        Input in = new Input(data, 0, data.length);
+        int version = in.readByte();
+        if (version != USER_LIST_VERSION) {
+            throw new IOException("Unsupported user list format version " + version);
+        }
+        int count = in.readVarInt();
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(readUser(in));
+        }
+        return users;
+    }
+
+    private static void writeUser(Output out, User user) {
+        out.writeByte(USER_VERSION);
+        out.writeString(user.getUserId());
+        out.writeString(user.getUsername());
+        out.writeString(user.getEmail());
+        out.writeString(user.getPassword());
+        out.writeEnum(user.getRole());
+        out.writeString(user.getFullName());
+        out.writeString(user.getDepartment());
+        out.writeSignedVarLong(user.getCreatedAt());
+        out.writeByte(user.isActive() ? FLAG_ACTIVE : 0);
+    }
+
+    private static User readUser(Input in) throws IOException {
+        int version = in.readByte();
+        if (version != USER_VERSION) {
+            throw new IOException("Unsupported user format version " + version);
+        }
+        User user = new User();
+        user.setUserId(in.readString());
+        user.setUsername(in.readString());
+        user.setEmail(in.readString());
+        user.setPassword(in.readString());
+        user.setRole(in.readEnum(UserRole.values()));
+        user.setFullName(in.readString());
+        user.setDepartment(in.readString());
+        user.setCreatedAt(in.readSignedVarLong());
+        user.setActive((in.readByte() & FLAG_ACTIVE) != 0);
+        return user;
+    }
+
+    // ---- Primitives ----
+
+    /**
+     * Growable byte buffer with varint and string writers
+     */
+    private static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        Output(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xffffffffL);
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7fL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeEnum(Enum<?> value) {
+            writeByte(value == null ? 0 : value.ordinal() + 1);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    /**
+     * Bounds-checked reader over a byte range
+     */
+    private static final class Input {
+        private final byte[] data;
+        private final int end;
+        private int position;
+
+        Input(byte[] data, int offset, int length) {
+            this.data = data;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        int readByte() throws IOException {
+            if (position >= end) {
+                throw new IOException("Truncated record");
+            }
+            return data[position++] & 0xff;
+        }
+
+        int readVarInt() throws IOException {
+            return (int) readVarLong();
+        }
+
+        long readVarLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        long readSignedVarLong() throws IOException {
+            long raw = readVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        <E extends Enum<E>> E readEnum(E[] values) throws IOException {
+            int code = readByte();
+            return code == 0 || code > values.length ? null : values[code - 1];
+        }
+
+        String readString() throws IOException {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            length--;
+            if (length < 0 || position + length > end) {
+                throw new IOException("Truncated string");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
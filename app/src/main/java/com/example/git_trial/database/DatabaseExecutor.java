@@ -0,0 +1,201 @@
+package com.example.git_trial.database;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs database and authentication work off the main thread and delivers the
+ * result on it. Work goes to one of two shared lanes: reads run on a small
+ * pool with a bounded queue, writes on a single thread so they happen in the
+ * order they were submitted and never queue behind a slow query. The write
+ * queue is unbounded, so a write is never rejected. Results are delivered to a
+ * callback on the main thread. Passing a LifecycleOwner (an activity) ties the
+ * callback to it: once the owner is destroyed the callback is dropped, and a
+ * read that has not started yet is skipped. A write always runs once
+ * submitted; only its callback is dropped. Submit from the main thread.
+ */
+public final class DatabaseExecutor {
+    private static final String TAG = "DatabaseExecutor";
+    private static final int READ_THREADS = 2;
+    // Reads waiting beyond this are rejected and reported to their callback instead of piling up
+    private static final int MAX_QUEUED = 64;
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 30;
+
+    private static final ThreadPoolExecutor READS =
+            lane("snb-db-read", READ_THREADS, new LinkedBlockingQueue<>(MAX_QUEUED));
+    private static final ThreadPoolExecutor WRITES = lane("snb-db-write", 1, new LinkedBlockingQueue<>());
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    private DatabaseExecutor() {
+    }
+
+    /**
+     * Receives the result of background work on the main thread
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+
+        /**
+         * The work threw, or was a read rejected because the read lane was full
+         */
+        default void onError(Exception e) {
+            Log.e(TAG, "Background database work failed", e);
+        }
+    }
+
+    /**
+     * A submitted piece of work; cancel it to drop its callback
+     */
+    public static final class Task {
+        private final boolean skipIfCancelled;
+        private volatile boolean cancelled;
+        private volatile Future<?> future;
+        // Stops watching the owner's lifecycle; main thread only
+        private Runnable release;
+
+        private Task(boolean skipIfCancelled) {
+            this.skipIfCancelled = skipIfCancelled;
+        }
+
+        /**
+         * Drop the callback; a read that has not started is also skipped. Work
+         * that is already running is never interrupted, since an interrupt
+         * closes the file channels the stores write through. Call on the main thread.
+         */
+        public void cancel() {
+            cancelled = true;
+            Future<?> submitted = future;
+            if (skipIfCancelled && submitted != null && submitted.cancel(false)) {
+                // Skipped, so nothing will be delivered to release it
+                release();
+            }
+        }
+
+        private void release() {
+            if (release != null) {
+                release.run();
+                release = null;
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * Run a read on the read lane and deliver its result to the callback,
+     * unless the owner is destroyed first. Owner and callback may be null.
+     */
+    public static <T> Task read(LifecycleOwner owner, Callable<T> work, Callback<T> callback) {
+        return submit(READS, true, owner, work, callback);
+    }
+
+    /**
+     * Run a write on the write lane, after every write submitted before it.
+     * It runs even if the owner is destroyed meanwhile; only the callback is
+     * dropped. Owner and callback may be null.
+     */
+    public static <T> Task write(LifecycleOwner owner, Callable<T> work, Callback<T> callback) {
+        return submit(WRITES, false, owner, work, callback);
+    }
+
+    /**
+     * Run a read with no result and no owner
+     */
+    public static void read(Runnable work) {
+        read(null, () -> {
+            work.run();
+            return null;
+        }, null);
+    }
+
+    /**
+     * Run a write with no result and no owner, e.g. a flush from onStop
+     */
+    public static void write(Runnable work) {
+        write(null, () -> {
+            work.run();
+            return null;
+        }, null);
+    }
+
+    private static <T> Task submit(ThreadPoolExecutor lane, boolean skipIfCancelled, LifecycleOwner owner,
+                                   Callable<T> work, Callback<T> callback) {
+        Task task = new Task(skipIfCancelled);
+        if (owner != null) {
+            if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+                task.cancel();
+            } else {
+                LifecycleEventObserver observer = (source, event) -> {
+                    if (event == Lifecycle.Event.ON_DESTROY) {
+                        task.cancel();
+                    }
+                };
+                owner.getLifecycle().addObserver(observer);
+                task.release = () -> owner.getLifecycle().removeObserver(observer);
+            }
+        }
+        if (skipIfCancelled && task.isCancelled()) {
+            return task;
+        }
+        try {
+            task.future = lane.submit(() -> {
+                T result = null;
+                Exception error = null;
+                try {
+                    result = work.call();
+                } catch (Exception e) {
+                    error = e;
+                }
+                deliver(task, callback, result, error);
+            });
+        } catch (RejectedExecutionException e) {
+            deliver(task, callback, null, e);
+        }
+        return task;
+    }
+
+    private static <T> void deliver(Task task, Callback<T> callback, T result, Exception error) {
+        MAIN.post(() -> {
+            task.release();
+            if (task.isCancelled()) {
+                return;
+            }
+            if (callback == null) {
+                if (error != null) {
+                    Log.e(TAG, "Background database work failed", error);
+                }
+            } else if (error != null) {
+                callback.onError(error);
+            } else {
+                callback.onResult(result);
+            }
+        });
+    }
+
+    private static ThreadPoolExecutor lane(String name, int threads, BlockingQueue<Runnable> queue) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
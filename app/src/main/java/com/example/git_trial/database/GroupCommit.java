@@ -0,0 +1,76 @@
+package com.example.git_trial.database;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces the writes of a store. Mutations are applied to the in-memory
+ * state right away and only counted here; one flush runs per window, or as
+ * soon as enough mutations have piled up. Owners call flush() directly at
+ * lifecycle points such as onStop.
+ */
+class GroupCommit {
+    static final long DEFAULT_WINDOW_MILLIS = 250;
+    static final int DEFAULT_MAX_PENDING = 64;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snb-group-commit");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Runnable flushAction;
+    private long windowMillis = DEFAULT_WINDOW_MILLIS;
+    private int maxPending = DEFAULT_MAX_PENDING;
+    private int pending;
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * The flush action persists everything pending and takes the owner's lock itself
+     */
+    GroupCommit(Runnable flushAction) {
+        this.flushAction = flushAction;
+    }
+
+    /**
+     * Change the flush window and batch size; a window of 0 or less, or a batch size of 1 or less,
+     * writes every mutation through
+     */
+    synchronized void configure(long windowMillis, int maxPending) {
+        this.windowMillis = windowMillis;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Count one mutation and schedule (or immediately run) the flush that will persist it
+     */
+    void mutated() {
+        boolean flushNow;
+        synchronized (this) {
+            pending++;
+            flushNow = pending >= maxPending || windowMillis <= 0;
+            if (!flushNow && scheduledFlush == null) {
+                scheduledFlush = SCHEDULER.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    /**
+     * Persist everything pending now
+     */
+    void flush() {
+        synchronized (this) {
+            pending = 0;
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+        }
+        flushAction.run();
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Notice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A query whose results the repository keeps up to date. Results are loaded
+ * a page at a time, and every later write that changes the loaded results
+ * reaches the listener as insert, change and remove events with positions,
+ * so a list adapter can mirror it with item notifications instead of
+ * reloading. Everything, the first page included, is delivered through the
+ * executor in the order it happened; apply the events in order to an
+ * initially empty list. The first page always arrives as an insert at 0,
+ * even when there are no results. Pages are loaded on the DatabaseExecutor
+ * read lane, so nothing here blocks the caller. The query's own limit is ignored in favour of pages.
+ * Close the live query when the results are no longer shown.
+ */
+public final class LiveQuery {
+
+    /**
+     * Receives the changes to the loaded results, on the live query's executor
+     */
+    public interface Listener {
+        void onInserted(int position, List<Notice> notices);
+
+        void onChanged(int position, Notice notice);
+
+        void onRemoved(int position);
+    }
+
+    /**
+     * The repository side: loads pages under its own lock and forgets closed
+     * live queries. Every other method is only called with that lock held.
+     */
+    interface Owner {
+        void loadMore(LiveQuery liveQuery);
+
+        void close(LiveQuery liveQuery);
+    }
+
+    private final NoticeQuery query;
+    private final int pageSize;
+    private final Executor executor;
+    private final Listener listener;
+    private final Owner owner;
+    private final Comparator<Entry> order;
+    // The loaded results: always the first entries.size() results of the query
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Entry> byId = new HashMap<>();
+    // Whether the loaded results are all of them, so new matches past the last one belong too
+    private volatile boolean complete;
+    private boolean loaded;
+    // Set while a page load is queued, so repeated scroll events load one page
+    private final AtomicBoolean loading = new AtomicBoolean();
+    private volatile boolean closed;
+
+    LiveQuery(NoticeQuery query, int pageSize, Executor executor, Listener listener, Owner owner) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+        }
+        this.query = query;
+        this.pageSize = pageSize;
+        this.executor = executor;
+        this.listener = listener;
+        this.owner = owner;
+        this.order = order(query.getSort());
+    }
+
+    public NoticeQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * Whether there are results past the loaded ones
+     */
+    public boolean hasMore() {
+        return !complete;
+    }
+
+    /**
+     * Load the next page in the background; it is delivered as one insert at the end
+     */
+    public void loadMore() {
+        if (!closed && loading.compareAndSet(false, true)) {
+            DatabaseExecutor.read(null, () -> {
+                try {
+                    owner.loadMore(this);
+                } finally {
+                    loading.set(false);
+                }
+                return null;
+            }, new DatabaseExecutor.Callback<Void>() {
+                @Override
+                public void onResult(Void result) {
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    if (e instanceof RejectedExecutionException) {
+                        // The page never started, so a later loadMore may try again
+                        loading.set(false);
+                    }
+                    DatabaseExecutor.Callback.super.onError(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stop delivering events, including any already queued on the executor
+     */
+    public void close() {
+        if (!closed) {
+            closed = true;
+            owner.close(this);
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * The query for the next page, starting after the last loaded result, plus
+     * one result to tell whether there are any after those
+     */
+    NoticeQuery nextPageQuery() {
+        NoticeQuery next = withLimit((long) pageSize + 1);
+        if (entries.isEmpty()) {
+            return next;
+        }
+        Entry last = entries.get(entries.size() - 1);
+        return next.after(last.key, last.priority);
+    }
+
+    /**
+     * The query for as many results as are loaded (at least a page), plus one
+     */
+    NoticeQuery loadedQuery() {
+        return withLimit((long) Math.max(entries.size(), pageSize) + 1);
+    }
+
+    private NoticeQuery withLimit(long limit) {
+        return query.withLimit((int) Math.min(limit, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Append the results of nextPageQuery(). The first page is delivered even
+     * if it is empty, so the listener knows it has loaded.
+     */
+    void appendPage(List<Notice> results) {
+        int start = entries.size();
+        complete = results.size() <= pageSize;
+        if (results.isEmpty() && loaded) {
+            return;
+        }
+        loaded = true;
+        List<Notice> page = new ArrayList<>(results.subList(0, Math.min(results.size(), pageSize)));
+        for (Notice notice : page) {
+            Entry entry = new Entry(notice);
+            entries.add(entry);
+            byId.put(entry.noticeId, entry);
+        }
+        post(() -> listener.onInserted(start, page));
+    }
+
+    /**
+     * A notice was written: current is the notice as it is now if it matches
+     * the query, or null if it no longer does (or is gone). Costs a binary
+     * search in the loaded results.
+     */
+    void update(String noticeId, Notice current) {
+        if (!loaded) {
+            // The first page will reflect it
+            return;
+        }
+        Entry old = byId.get(noticeId);
+        if (old == null && current == null) {
+            return;
+        }
+        int oldPosition = old != null ? Collections.binarySearch(entries, old, order) : -1;
+        Entry entry = current != null ? new Entry(current) : null;
+        if (old != null && entry != null && order.compare(old, entry) == 0) {
+            entries.set(oldPosition, entry);
+            byId.put(noticeId, entry);
+            post(() -> listener.onChanged(oldPosition, current));
+            return;
+        }
+        if (old != null) {
+            remove(oldPosition);
+        }
+        if (entry != null) {
+            int position = -Collections.binarySearch(entries, entry, order) - 1;
+            if (position == entries.size() && !complete) {
+                // Past the loaded results; it arrives with a later page
+                return;
+            }
+            insert(position, entry);
+        }
+    }
+
+    /**
+     * Bring the loaded results in line with the results of loadedQuery(), for
+     * engines that cannot tell which notices a write touched. Keeps the
+     * number of loaded results, or loads the first page if there are none,
+     * and delivers only the differences.
+     */
+    void replace(List<Notice> prefix) {
+        if (!this.loaded) {
+            return;
+        }
+        int loaded = Math.max(entries.size(), pageSize);
+        List<Notice> latest = prefix.size() > loaded ? prefix.subList(0, loaded) : prefix;
+        complete = prefix.size() <= loaded;
+        Set<String> latestIds = new HashSet<>();
+        for (Notice notice : latest) {
+            latestIds.add(notice.getNoticeId());
+        }
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (!latestIds.contains(entries.get(i).noticeId)) {
+                remove(i);
+            }
+        }
+        for (int i = 0; i < latest.size(); i++) {
+            Notice notice = latest.get(i);
+            Entry entry = new Entry(notice);
+            if (i < entries.size() && entries.get(i).noticeId.equals(entry.noticeId)) {
+                if (entries.get(i).updatedAt != entry.updatedAt) {
+                    int position = i;
+                    entries.set(i, entry);
+                    byId.put(entry.noticeId, entry);
+                    post(() -> listener.onChanged(position, notice));
+                }
+                continue;
+            }
+            Entry moved = byId.get(entry.noticeId);
+            if (moved != null) {
+                remove(entries.indexOf(moved));
+            }
+            insert(i, entry);
+        }
+    }
+
+    private void insert(int position, Entry entry) {
+        entries.add(position, entry);
+        byId.put(entry.noticeId, entry);
+        List<Notice> inserted = Collections.singletonList(entry.notice);
+        post(() -> listener.onInserted(position, inserted));
+    }
+
+    private void remove(int position) {
+        byId.remove(entries.remove(position).noticeId);
+        post(() -> listener.onRemoved(position));
+    }
+
+    private void post(Runnable event) {
+        executor.execute(() -> {
+            if (!closed) {
+                event.run();
+            }
+        });
+    }
+
+    /**
+     * The query's sort order over entries, matching NoticeQueryPlanner
+     */
+    private static Comparator<Entry> order(NoticeQuery.Sort sort) {
+        Comparator<Entry> newestFirst = (a, b) -> a.key.compareTo(b.key);
+        switch (sort) {
+            case OLDEST_FIRST:
+                return newestFirst.reversed();
+            case PRIORITY:
+                return Comparator.comparingInt((Entry entry) -> entry.priority).reversed().thenComparing(newestFirst);
+            default:
+                return newestFirst;
+        }
+    }
+
+    /**
+     * A loaded result with the fields that placed it, as they were when it was
+     * loaded; the notice itself may be a cached instance changed in place since
+     */
+    private static final class Entry {
+        final String noticeId;
+        final NoticeIndex.Key key;
+        final int priority;
+        final long updatedAt;
+        final Notice notice;
+
+        Entry(Notice notice) {
+            this.noticeId = notice.getNoticeId();
+            this.key = new NoticeIndex.Key(notice.getCreatedAt(), noticeId);
+            this.priority = notice.getPriority();
+            this.updatedAt = notice.getUpdatedAt();
+            this.notice = notice;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.git_trial.database;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Map from long keys to objects that keeps insertion order, like a
+ * LinkedHashMap but without boxing keys or allocating an entry per mapping.
+ * Keys and values live in dense arrays in insertion order; an open-addressing
+ * table of int positions (linear probing) finds them. Removed mappings leave
+ * holes in the dense arrays until the next resize closes them up.
+ *
+ * Values may not be null. Not thread safe; iteration runs in insertion order
+ * and does not allow changes to the map while it runs.
+ */
+final class LongObjectMap<V> implements Iterable<V> {
+    private static final int EMPTY = -1;
+    private static final int REMOVED = -2;
+
+    private long[] keys;
+    private Object[] values;
+    // Position in keys/values, EMPTY or REMOVED; length is a power of two
+    private int[] slots;
+    // Used length of keys/values, holes included
+    private int end;
+    private int size;
+    private int removedSlots;
+
+    LongObjectMap() {
+        this(16);
+    }
+
+    LongObjectMap(int expectedSize) {
+        allocate(Math.max(expectedSize, 4));
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean containsKey(long key) {
+        return slots[findSlot(key)] >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int position = slots[findSlot(key)];
+        return position >= 0 ? (V) values[position] : null;
+    }
+
+    /**
+     * Map a key to a value; a key that is already present keeps its place in the order
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (value == null) {
+            // A null value marks a removed mapping in the dense arrays
+            throw new NullPointerException("null value");
+        }
+        int slot = findSlot(key);
+        int position = slots[slot];
+        if (position >= 0) {
+            V previous = (V) values[position];
+            values[position] = value;
+            return previous;
+        }
+        if (end == keys.length || (size + removedSlots + 1) * 4 > slots.length * 3) {
+            resize();
+            slot = findSlot(key);
+        }
+        if (slots[slot] == REMOVED) {
+            removedSlots--;
+        }
+        keys[end] = key;
+        values[end] = value;
+        slots[slot] = end++;
+        size++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        int slot = findSlot(key);
+        int position = slots[slot];
+        if (position < 0) {
+            return null;
+        }
+        V previous = (V) values[position];
+        values[position] = null;
+        slots[slot] = REMOVED;
+        removedSlots++;
+        size--;
+        if (size == 0) {
+            clear();
+        }
+        return previous;
+    }
+
+    void clear() {
+        Arrays.fill(values, 0, end, null);
+        Arrays.fill(slots, EMPTY);
+        end = 0;
+        size = 0;
+        removedSlots = 0;
+    }
+
+    /**
+     * Values in insertion order
+     */
+    @Override
+    public Iterator<V> iterator() {
+        return new Iterator<V>() {
+            private final int expectedEnd = end;
+            private final int expectedSize = size;
+            private int position = skipHoles(0);
+
+            @Override
+            public boolean hasNext() {
+                return position < end;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V next() {
+                if (end != expectedEnd || size != expectedSize) {
+                    throw new ConcurrentModificationException();
+                }
+                if (position >= end) {
+                    throw new NoSuchElementException();
+                }
+                V value = (V) values[position];
+                position = skipHoles(position + 1);
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Find the slot holding a key, or the slot it would go in: the first
+     * REMOVED slot on its probe path, else the EMPTY slot that ends it
+     */
+    private int findSlot(long key) {
+        int mask = slots.length - 1;
+        int slot = mix(key) & mask;
+        int firstRemoved = -1;
+        while (true) {
+            int position = slots[slot];
+            if (position == EMPTY) {
+                return firstRemoved >= 0 ? firstRemoved : slot;
+            }
+            if (position == REMOVED) {
+                if (firstRemoved < 0) {
+                    firstRemoved = slot;
+                }
+            } else if (keys[position] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int skipHoles(int position) {
+        while (position < end && values[position] == null) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Grow (or just close up holes), rebuilding the slot table
+     */
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldEnd = end;
+        allocate(Math.max(size * 2, 4));
+        for (int position = 0; position < oldEnd; position++) {
+            if (oldValues[position] != null) {
+                keys[end] = oldKeys[position];
+                values[end] = oldValues[position];
+                slots[findSlot(oldKeys[position])] = end++;
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        int tableSize = Integer.highestOneBit(capacity * 2 - 1) * 2;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        slots = new int[tableSize];
+        Arrays.fill(slots, EMPTY);
+        end = 0;
+        size = 0;
+        removedSlots = 0;
+    }
+
+    /**
+     * Spread the key's bits; generated IDs differ mostly in their low and middle bits
+     */
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,513 @@
+package com.example.git_trial.database;
+
+import android.util.Log;
+import com.example.git_trial.model.Notice;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold tier for archived notices, kept apart from the live set so that hot
+ * queries never see them. The tier is one file of gzip-compressed segments of
+ * BinaryCodec records; it is read on first use, and each write appends one
+ * segment holding only what changed. Superseded records are dropped by a
+ * compaction the owner runs in the background once they outweigh the live
+ * ones (see startCompaction). Records
+ * stay encoded in memory, and every read returns a fresh Notice, so callers
+ * may modify what they get back.
+ *
+ * A notice moving between tiers is briefly stored in both; the live set
+ * wins, so a move interrupted by a crash is undone on the next load.
+ *
+ * File layout: [int magic][int version], then segments of [int length][gzip data].
+ * Inside each segment: [int count], then count x [byte type][UTF id], with
+ * [int length][notice record] following each put. A torn last segment is dropped.
+ */
+class NoticeArchive {
+    private static final String TAG = "NoticeArchive";
+    private static final int MAGIC = 0x534e4241; // "SNBA"
+    // Version 1 was a single gzip stream of every record, rewritten whole on each change
+    private static final int LEGACY_VERSION = 1;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+    private static final byte RECORD_PUT = 1;
+    private static final byte RECORD_REMOVE = 2;
+
+    // Compact once superseded record bytes are at least this many and at least as many as the live ones
+    private static final long COMPACT_MIN_DEAD_BYTES = 64 * 1024;
+
+    private final File file;
+    private final Map<String, byte[]> records = new LinkedHashMap<>();
+    private final NoticeIndex index = new NoticeIndex();
+    // Records moved back to the live set; kept in the file until the live set has persisted them
+    private final Map<String, byte[]> removedRecords = new LinkedHashMap<>();
+    // Notices put since the last write
+    private final Set<String> changedIds = new LinkedHashSet<>();
+    private boolean loaded;
+    private boolean readable = true;
+    // The file must be rewritten whole before anything can be appended
+    private boolean rewrite;
+    // Length of the valid part of the file; 0 if there is no file
+    private long fileLength;
+    // Record bytes in the file, superseded or not, and record bytes still current
+    private long fileRecordBytes;
+    private long liveRecordBytes;
+    // Bumped whenever the file is replaced, so a compaction started before then is dropped
+    private int fileGeneration;
+
+    NoticeArchive(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Read the file on first use. Records whose notice is in the live set are
+     * left over from an interrupted move and dropped.
+     */
+    void load(Predicate<String> isLive) {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (file.length() < HEADER_SIZE) {
+            // Missing, or cut short while its header was being written; the next write starts it over
+            return;
+        }
+        try {
+            if (readVersion() == LEGACY_VERSION) {
+                readLegacy();
+                rewrite = true;
+            } else {
+                readSegments();
+            }
+        } catch (IOException e) {
+            // Never overwrite a file we could not read
+            Log.e(TAG, "Failed to read archived notices", e);
+            readable = false;
+            records.clear();
+            fileRecordBytes = 0;
+            liveRecordBytes = 0;
+            return;
+        }
+        Iterator<Map.Entry<String, byte[]>> entries = records.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, byte[]> entry = entries.next();
+            if (isLive.test(entry.getKey())) {
+                // Dropped from the file once the live set is known to be persisted
+                removedRecords.put(entry.getKey(), entry.getValue());
+                entries.remove();
+                continue;
+            }
+            Notice notice = get(entry.getKey());
+            if (notice != null) {
+                index.put(notice);
+            }
+        }
+    }
+
+    private int readVersion() throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            int magic = in.readInt();
+            if (magic == MAGIC) {
+                return in.readInt();
+            }
+            // Version 1 files are gzip streams with the header inside
+            return (magic >>> 16) == 0x1f8b ? LEGACY_VERSION : -1;
+        }
+    }
+
+    private void readLegacy() throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != LEGACY_VERSION) {
+                throw new IOException("Unrecognized notice archive " + file);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] record = new byte[in.readInt()];
+                in.readFully(record);
+                String noticeId = BinaryCodec.decodeNotice(record, 0, record.length, null).getNoticeId();
+                putRecord(noticeId, record);
+                fileRecordBytes += record.length;
+            }
+        }
+    }
+
+    /**
+     * Replay every segment in order. A segment that is cut short or does not
+     * decode (e.g. the process died mid-append) ends the file and is truncated away.
+     */
+    private void readSegments() throws IOException {
+        long length = file.length();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unrecognized notice archive " + file);
+            }
+            long position = HEADER_SIZE;
+            while (length - position >= 4) {
+                int size = in.readInt();
+                if (size < 0 || size > length - position - 4) {
+                    break;
+                }
+                byte[] segment = new byte[size];
+                in.readFully(segment);
+                try {
+                    applySegment(segment);
+                } catch (IOException e) {
+                    Log.w(TAG, "Dropping damaged archive segment at " + position, e);
+                    break;
+                }
+                position += 4 + size;
+            }
+            fileLength = position;
+        }
+        if (fileLength < length) {
+            try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+                out.setLength(fileLength);
+            }
+        }
+    }
+
+    /**
+     * Decode a whole segment, then apply it, so a damaged one changes nothing
+     */
+    private void applySegment(byte[] segment) throws IOException {
+        List<String> ids = new ArrayList<>();
+        List<byte[]> puts = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(
+                new GZIPInputStream(new ByteArrayInputStream(segment)))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte type = in.readByte();
+                ids.add(in.readUTF());
+                if (type == RECORD_PUT) {
+                    byte[] record = new byte[in.readInt()];
+                    in.readFully(record);
+                    puts.add(record);
+                } else if (type == RECORD_REMOVE) {
+                    puts.add(null);
+                } else {
+                    throw new IOException("Unknown archive record type " + type);
+                }
+            }
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            byte[] record = puts.get(i);
+            if (record != null) {
+                putRecord(ids.get(i), record);
+                fileRecordBytes += record.length;
+            } else {
+                removeRecord(records, ids.get(i));
+            }
+        }
+    }
+
+    /**
+     * False if the file exists but could not be read; the archive must not be changed then
+     */
+    boolean isWritable() {
+        return readable;
+    }
+
+    boolean contains(String noticeId) {
+        return records.containsKey(noticeId);
+    }
+
+    Notice get(String noticeId) {
+        byte[] record = records.get(noticeId);
+        if (record == null) {
+            return null;
+        }
+        try {
+            return BinaryCodec.decodeNotice(record, 0, record.length, null);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to decode archived notice", e);
+            return null;
+        }
+    }
+
+    void put(Notice notice) {
+        String noticeId = notice.getNoticeId();
+        removeRecord(removedRecords, noticeId);
+        putRecord(noticeId, BinaryCodec.encodeNotice(notice));
+        index.put(notice);
+        changedIds.add(noticeId);
+    }
+
+    /**
+     * Take a notice out of the archive, returning it or null if it was not there
+     */
+    Notice remove(String noticeId) {
+        Notice notice = get(noticeId);
+        if (notice != null) {
+            removedRecords.put(noticeId, records.remove(noticeId));
+            index.remove(noticeId);
+        }
+        return notice;
+    }
+
+    private void putRecord(String noticeId, byte[] record) {
+        removeRecord(records, noticeId);
+        records.put(noticeId, record);
+        liveRecordBytes += record.length;
+    }
+
+    private void removeRecord(Map<String, byte[]> from, String noticeId) {
+        byte[] previous = from.remove(noticeId);
+        if (previous != null) {
+            liveRecordBytes -= previous.length;
+        }
+    }
+
+    /**
+     * The index over archived notices, for the query planner
+     */
+    NoticeIndex index() {
+        return index;
+    }
+
+    /**
+     * Archived notices, newest first
+     */
+    NavigableSet<NoticeIndex.Key> all() {
+        return index.archived();
+    }
+
+    NavigableSet<NoticeIndex.Key> createdBy(int userId) {
+        return index.createdBy(userId);
+    }
+
+    /**
+     * Every archived notice, in the order they were archived
+     */
+    List<Notice> notices() {
+        List<Notice> notices = new ArrayList<>(records.size());
+        for (String noticeId : records.keySet()) {
+            notices.add(get(noticeId));
+        }
+        return notices;
+    }
+
+    /**
+     * Replace the whole archive, e.g. for a bulk rewrite; the next write rewrites the file
+     */
+    void replaceAll(List<Notice> notices) {
+        loaded = true;
+        readable = true;
+        records.clear();
+        removedRecords.clear();
+        changedIds.clear();
+        index.clear();
+        liveRecordBytes = 0;
+        for (Notice notice : notices) {
+            put(notice);
+        }
+        rewrite = true;
+    }
+
+    /**
+     * Append the notices put since the last write. Notices just moved back to the
+     * live set are still written, since the live set may not have persisted them yet.
+     */
+    void writeIfDirty() throws IOException {
+        if (rewrite) {
+            Map<String, byte[]> all = new LinkedHashMap<>(records);
+            all.putAll(removedRecords);
+            File tempFile = new File(file.getPath() + ".tmp");
+            long length = writeFile(tempFile, all);
+            replaceFile(tempFile, length, liveRecordBytes);
+            rewrite = false;
+            changedIds.clear();
+            return;
+        }
+        if (!changedIds.isEmpty()) {
+            Map<String, byte[]> puts = new LinkedHashMap<>();
+            for (String noticeId : changedIds) {
+                byte[] record = records.get(noticeId);
+                if (record == null) {
+                    record = removedRecords.get(noticeId);
+                }
+                if (record != null) {
+                    puts.put(noticeId, record);
+                }
+            }
+            append(segment(puts, Collections.emptyList()));
+            changedIds.clear();
+            for (byte[] record : puts.values()) {
+                fileRecordBytes += record.length;
+            }
+        }
+    }
+
+    /**
+     * Drop the notices moved back to the live set, once the live set has persisted them
+     */
+    void forgetRemoved() throws IOException {
+        if (removedRecords.isEmpty()) {
+            return;
+        }
+        if (!rewrite) {
+            append(segment(Collections.emptyMap(), removedRecords.keySet()));
+        }
+        for (String noticeId : new ArrayList<>(removedRecords.keySet())) {
+            removeRecord(removedRecords, noticeId);
+        }
+    }
+
+    /**
+     * Whether superseded records take up enough of the file to be worth a compaction
+     */
+    boolean needsCompaction() {
+        long deadBytes = fileRecordBytes - liveRecordBytes;
+        return loaded && readable && !rewrite && deadBytes >= COMPACT_MIN_DEAD_BYTES && deadBytes >= liveRecordBytes;
+    }
+
+    /**
+     * Copy what a compaction will write. Call with the owner's lock held, then
+     * write the copy without it, then install it with the lock held again.
+     */
+    Compaction startCompaction() {
+        Map<String, byte[]> all = new LinkedHashMap<>(records);
+        all.putAll(removedRecords);
+        return new Compaction(new File(file.getPath() + ".compact"), all, fileLength,
+                fileRecordBytes, liveRecordBytes, fileGeneration);
+    }
+
+    /**
+     * Swap in a written compaction. Segments appended since it was started are
+     * copied onto its end; if the file was replaced meanwhile it is dropped.
+     */
+    void finishCompaction(Compaction compaction) throws IOException {
+        if (compaction.generation != fileGeneration || compaction.length < 0) {
+            compaction.tempFile.delete();
+            return;
+        }
+        long tailLength = fileLength - compaction.fromLength;
+        if (tailLength > 0) {
+            byte[] tail = new byte[(int) tailLength];
+            try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+                in.seek(compaction.fromLength);
+                in.readFully(tail);
+            }
+            try (FileOutputStream out = new FileOutputStream(compaction.tempFile, true)) {
+                out.write(tail);
+                out.getFD().sync();
+            }
+        }
+        replaceFile(compaction.tempFile, compaction.length + tailLength,
+                compaction.liveRecordBytes + fileRecordBytes - compaction.fileRecordBytes);
+    }
+
+    /**
+     * A rewrite of the file holding only current records, written off the owner's lock
+     */
+    static final class Compaction {
+        private final File tempFile;
+        private final Map<String, byte[]> records;
+        private final long fromLength;
+        private final long fileRecordBytes;
+        private final long liveRecordBytes;
+        private final int generation;
+        private long length = -1;
+
+        private Compaction(File tempFile, Map<String, byte[]> records, long fromLength,
+                           long fileRecordBytes, long liveRecordBytes, int generation) {
+            this.tempFile = tempFile;
+            this.records = records;
+            this.fromLength = fromLength;
+            this.fileRecordBytes = fileRecordBytes;
+            this.liveRecordBytes = liveRecordBytes;
+            this.generation = generation;
+        }
+
+        void write() throws IOException {
+            length = writeFile(tempFile, records);
+        }
+    }
+
+    private void replaceFile(File tempFile, long length, long recordBytes) throws IOException {
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+        fileLength = length;
+        fileRecordBytes = recordBytes;
+        fileGeneration++;
+    }
+
+    /**
+     * Append one segment, creating the file with its header if there is none
+     */
+    private void append(byte[] segment) throws IOException {
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            long position = fileLength;
+            if (position == 0) {
+                out.setLength(0);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                position = HEADER_SIZE;
+            }
+            out.seek(position);
+            out.writeInt(segment.length);
+            out.write(segment);
+            out.getFD().sync();
+            fileLength = position + 4 + segment.length;
+        }
+    }
+
+    /**
+     * Write a new file holding the given records as one segment, returning its length
+     */
+    private static long writeFile(File target, Map<String, byte[]> records) throws IOException {
+        byte[] segment = segment(records, Collections.emptyList());
+        try (FileOutputStream fileOut = new FileOutputStream(target)) {
+            DataOutputStream out = new DataOutputStream(fileOut);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(segment.length);
+            out.write(segment);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        return HEADER_SIZE + 4 + segment.length;
+    }
+
+    private static byte[] segment(Map<String, byte[]> puts, Collection<String> removes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes, 8192);
+        DataOutputStream out = new DataOutputStream(gzip);
+        out.writeInt(puts.size() + removes.size());
+        for (Map.Entry<String, byte[]> put : puts.entrySet()) {
+            out.writeByte(RECORD_PUT);
+            out.writeUTF(put.getKey());
+            out.writeInt(put.getValue().length);
+            out.write(put.getValue());
+        }
+        for (String noticeId : removes) {
+            out.writeByte(RECORD_REMOVE);
+            out.writeUTF(noticeId);
+        }
+        out.flush();
+        gzip.finish();
+        return bytes.toByteArray();
+    }
+}
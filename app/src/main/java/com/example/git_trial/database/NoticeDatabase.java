@@ -2,287 +2,1380 @@ package com.example.git_trial.database;
 
 import android.content.Context;
 import android.content.SharedPreferences;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import android.util.Log;
+import com.example.git_trial.model.Audience;
+import com.example.git_trial.model.IdGenerator;
 import com.example.git_trial.model.Notice;
 import com.example.git_trial.model.NoticeCategory;
+import com.example.git_trial.model.RetentionPolicy;
+import com.example.git_trial.model.StringDictionary;
 import com.example.git_trial.model.User;
+import com.example.git_trial.utils.StartupTimings;
 
-import java.lang.reflect.Type;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
- * Database manager for handling notice data using SharedPreferences
- * In a production app, this would be replaced with SQLite or Room database
+ * Database manager for handling notice data; the default NoticeRepository engine.
+ * A single process-wide instance keeps a write-through in-memory copy of every
+ * notice over a memory-mapped snapshot and an append-only change log.
  */
-public class NoticeDatabase {
+public class NoticeDatabase implements NoticeRepository {
+    private static final String TAG = "NoticeDatabase";
     private static final String PREFS_NAME = "snb_notice_prefs";
     private static final String NOTICES_KEY = "notices";
+    private static final String NUMERIC_IDS_KEY = "numeric_ids";
+    private static final String LOG_FILE_NAME = "notices.log";
+    private static final String SNAPSHOT_FILE_NAME = "notices.snapshot";
+    private static final String COMPACTION_FILE_NAME = "notices.snapshot.compact";
+    private static final String ARCHIVE_FILE_NAME = "notices.archive";
     
+    // Deleted notices can be restored for this long
+    private static final long UNDO_WINDOW_MS = 10_000;
+    // Compaction budget: only worth it once enough of the stored bytes are dead, and at most once a minute
+    private static final double COMPACT_DEAD_RATIO = 0.5;
+    private static final long COMPACT_MIN_DEAD_BYTES = 64 * 1024;
+    private static final long COMPACT_MIN_INTERVAL_MS = 60_000;
+    
+    // List copies keep this much of the description; the full text is loaded when a notice is opened
+    private static final int DESCRIPTION_PREVIEW_LENGTH = 160;
+    private static final int BODY_CACHE_SIZE = 16;
+    private static final int QUERY_CACHE_SIZE = 32;
+    
+    private static final ScheduledExecutorService MAINTENANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snb-notice-maintenance");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    
+    // Only read for data older versions left there: the notice JSON blob, migrated once
     private SharedPreferences sharedPreferences;
-    private Gson gson;
+    private File logFile;
+    // The changes since the snapshot, one record each (see NoticeLog)
+    private NoticeLog noticeLog;
+    private File snapshotFile;
+    private File compactionFile;
+    // Notices as of the last checkpoint; startup only reads the fixed-width headers the indexes need
+    private NoticeSnapshot snapshot;
+    // Compressed cold tier that archived notices move to, only read by queries for archived notices
+    private NoticeArchive archive;
+    private boolean loaded;
+    private static NoticeDatabase instance;
+    
+    // Write-through cache of every live notice by numeric ID, in insertion order. Getters
+    // return the cached instances, which are read-only; changes go through updateNotice/archiveNotice.
+    private final LongObjectMap<CachedNotice> notices = new LongObjectMap<>();
+    private final NoticeIndex noticeIndex = new NoticeIndex();
+    private final NoticeSearchIndex searchIndex = new NoticeSearchIndex();
+    // Recently opened full descriptions of snapshot rows, least recently used first
+    private final Map<String, String> bodyCache = new LinkedHashMap<String, String>(BODY_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > BODY_CACHE_SIZE;
+        }
+    };
+    // The search index needs every notice's text, so it is built on the first search
+    private boolean searchIndexReady;
+    // Results of recent queries; every mutation bumps the generation, which makes them stale
+    private final QueryCache queryCache = new QueryCache(QUERY_CACHE_SIZE);
+    private long generation;
+    // Writes reach the cache at once and the log in one append per window, or on flush()
+    private final GroupCommit groupCommit = new GroupCommit(this::flush);
+    // Told about each notice a write touches, so they update their results without a query.
+    // Copy-on-write so observe and close need not wait for the lock while the store loads
+    private final List<LiveQuery> liveQueries = new CopyOnWriteArrayList<>();
+    private final LiveQuery.Owner liveQueryOwner = new LiveQuery.Owner() {
+        @Override
+        public void loadMore(LiveQuery liveQuery) {
+            synchronized (NoticeDatabase.this) {
+                if (!liveQuery.isClosed()) {
+                    ensureLoaded();
+                    liveQuery.appendPage(resolve(plan(liveQuery.nextPageQuery())));
+                }
+            }
+        }
+        
+        @Override
+        public void close(LiveQuery liveQuery) {
+            liveQueries.remove(liveQuery);
+        }
+    };
     
-    public NoticeDatabase(Context context) {
+    // Tombstoned notices still inside the undo window, oldest first
+    private final Map<String, DeletedNotice> recentlyDeleted = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledPurge;
+    // IDs written while a compaction copies the store; null when no compaction is running
+    private Set<String> changedDuringCompaction;
+    private long lastCompactionAt;
+    private long lastCompactionMillis = -1;
+    // Cached notices still read from their snapshot row, kept up to date so storage stats cost nothing
+    private int currentSnapshotRows;
+    // Dead bytes when flush() last looked; a purge is only worth scheduling once writes add more
+    private long deadBytesAtLastFlush;
+    
+    // Package-private so tests can open stores of their own; the app uses getInstance
+    NoticeDatabase(Context context) {
         this.sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        this.gson = new Gson();
+        this.snapshotFile = new File(context.getFilesDir(), SNAPSHOT_FILE_NAME);
+        this.compactionFile = new File(context.getFilesDir(), COMPACTION_FILE_NAME);
+        this.logFile = new File(context.getFilesDir(), LOG_FILE_NAME);
+        this.archive = new NoticeArchive(new File(context.getFilesDir(), ARCHIVE_FILE_NAME));
+    }
+    
+    /**
+     * Get the shared instance used by every activity. This only records where the
+     * files are; the store is opened on first use or by warmUp.
+     */
+    public static synchronized NoticeDatabase getInstance(Context context) {
+        if (instance == null) {
+            instance = new NoticeDatabase(context.getApplicationContext());
+            RetentionSweeper.start(instance);
+        }
+        return instance;
+    }
+    
+    /**
+     * Open the store, migrate data left by older versions and load the cache,
+     * once per process; called with the lock held by everything that reads or
+     * writes notices
+     */
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            snapshot = NoticeSnapshot.open(snapshotFile);
+            noticeLog = new NoticeLog(logFile);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open notice storage", e);
+        }
+        // Set before loading, as the migrations below write through the public methods
+        loaded = true;
+        migrateLegacyNotices();
+        renumberLegacyNotices(loadNotices());
+        moveArchivedToColdTier();
+        if (noticeLog.needsCheckpoint()) {
+            checkpoint(liveNotices());
+        }
         initializeSampleNotices();
+        StartupTimings.record("notices.load", start);
+    }
+    
+    @Override
+    public synchronized void warmUp() {
+        ensureLoaded();
+    }
+    
+    /**
+     * Load the snapshot headers and the log into the in-memory cache (done once
+     * per process). Notices whose ID is not numeric are returned instead.
+     */
+    private List<Notice> loadNotices() {
+        List<Notice> legacyNotices = new ArrayList<>();
+        notices.clear();
+        currentSnapshotRows = 0;
+        noticeIndex.clear();
+        searchIndex.clear();
+        searchIndexReady = false;
+        try {
+            Set<String> deletedIds = noticeLog.deletedIds();
+            for (int row = 0; row < snapshot.size(); row++) {
+                String noticeId = snapshot.noticeId(row);
+                if (deletedIds.contains(noticeId)) {
+                    continue;
+                }
+                long id = IdGenerator.parse(noticeId);
+                if (id == IdGenerator.NO_ID) {
+                    legacyNotices.add(snapshot.materialize(row));
+                    continue;
+                }
+                notices.put(id, new CachedNotice(noticeId, row));
+                currentSnapshotRows++;
+                NoticeCategory category = snapshot.category(row);
+                int department = snapshot.departmentCode(row);
+                noticeIndex.put(noticeId, snapshot.createdAt(row), category, department,
+                        Audience.forNotice(category, department), snapshot.createdByCode(row),
+                        snapshot.priority(row), snapshot.isArchived(row), snapshot.expiresAt(row));
+            }
+            for (Notice notice : noticeLog.readAll()) {
+                if (IdGenerator.parse(notice.getNoticeId()) == IdGenerator.NO_ID) {
+                    legacyNotices.add(notice);
+                } else {
+                    cache(notice);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to load notices", e);
+        }
+        return legacyNotices;
+    }
+    
+    /**
+     * Give notices stored by older versions, whose IDs were strings such as
+     * "notice_<millis>_<n>", generated numeric IDs. Live ones are renumbered
+     * whenever found; the cold tier is read and renumbered once.
+     */
+    private void renumberLegacyNotices(List<Notice> legacyNotices) {
+        boolean renumberArchive = !sharedPreferences.getBoolean(NUMERIC_IDS_KEY, false);
+        if (legacyNotices.isEmpty() && !renumberArchive) {
+            return;
+        }
+        try {
+            for (Notice notice : legacyNotices) {
+                noticeLog.appendDelete(notice.getNoticeId());
+                notice.setNoticeId(IdGenerator.nextString());
+                noticeLog.append(notice);
+                cache(notice);
+            }
+            if (renumberArchive && archive().isWritable()) {
+                for (Notice notice : archive.notices()) {
+                    if (IdGenerator.parse(notice.getNoticeId()) == IdGenerator.NO_ID) {
+                        archive.remove(notice.getNoticeId());
+                        notice.setNoticeId(IdGenerator.nextString());
+                        archive.put(notice);
+                    }
+                }
+                sharedPreferences.edit().putBoolean(NUMERIC_IDS_KEY, true).apply();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to renumber notices", e);
+        }
+        flush();
+        if (!legacyNotices.isEmpty()) {
+            checkpoint(liveNotices());
+        }
+    }
+    
+    /**
+     * Give a notice created with a non-numeric ID a generated one, as the cache is keyed by number
+     */
+    private static void ensureNumericId(Notice notice) {
+        if (IdGenerator.parse(notice.getNoticeId()) == IdGenerator.NO_ID) {
+            notice.setNoticeId(IdGenerator.nextString());
+        }
+    }
+    
+    private CachedNotice cached(String noticeId) {
+        return notices.get(IdGenerator.parse(noticeId));
+    }
+    
+    private boolean isLive(String noticeId) {
+        return notices.containsKey(IdGenerator.parse(noticeId));
+    }
+    
+    /**
+     * Move archived notices that older versions kept in the live set into the cold tier
+     */
+    private void moveArchivedToColdTier() {
+        List<NoticeIndex.Key> archivedKeys = new ArrayList<>(noticeIndex.archived());
+        if (archivedKeys.isEmpty() || !archive().isWritable()) {
+            return;
+        }
+        try {
+            for (NoticeIndex.Key key : archivedKeys) {
+                Notice notice = fullNotice(key.noticeId);
+                noticeLog.appendDelete(key.noticeId);
+                evict(key.noticeId);
+                archive.put(notice);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to move archived notices", e);
+        }
+        flush();
+    }
+    
+    /**
+     * The cold tier, read from disk on first use
+     */
+    private NoticeArchive archive() {
+        archive.load(this::isLive);
+        return archive;
+    }
+    
+    /**
+     * Fold the current notices into a new snapshot and empty the log
+     */
+    private void checkpoint(List<Notice> allNotices) {
+        try {
+            NoticeSnapshot.write(snapshotFile, allNotices);
+            swapSnapshot(NoticeSnapshot.open(snapshotFile), allNotices, new HashSet<>());
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write notice snapshot", e);
+        }
+    }
+    
+    /**
+     * Switch to a snapshot holding the given notices and restart the log.
+     * Notices changed after the snapshot was taken are logged again on top of it.
+     */
+    private void swapSnapshot(NoticeSnapshot newSnapshot, List<Notice> snapshotNotices, Set<String> changedIds)
+            throws IOException {
+        noticeLog.reset();
+        snapshot = newSnapshot;
+        currentSnapshotRows = 0;
+        for (int row = 0; row < snapshotNotices.size(); row++) {
+            String noticeId = snapshotNotices.get(row).getNoticeId();
+            CachedNotice cached = cached(noticeId);
+            if (cached != null && !changedIds.contains(noticeId)) {
+                // The snapshot holds it now, so drop the full copy; a preview is built on next access
+                cached.snapshotRow = row;
+                cached.notice = null;
+                currentSnapshotRows++;
+            }
+        }
+        for (String noticeId : changedIds) {
+            CachedNotice cached = cached(noticeId);
+            if (cached != null) {
+                cached.snapshotRow = -1;
+                noticeLog.append(cached.notice);
+            } else {
+                noticeLog.appendDelete(noticeId);
+            }
+        }
+        noticeLog.flush();
+    }
+    
+    /**
+     * Put a materialized notice into the cache and indexes
+     */
+    private void cache(Notice notice) {
+        forgetSnapshotRow(notices.put(IdGenerator.parse(notice.getNoticeId()), new CachedNotice(notice)));
+        bodyCache.remove(notice.getNoticeId());
+        noticeIndex.put(notice);
+        if (searchIndexReady) {
+            searchIndex.put(notice);
+        }
+        markChanged(notice.getNoticeId());
+        updateLiveQueries(notice.getNoticeId());
+    }
+    
+    /**
+     * Drop a notice from the live set's cache and indexes
+     */
+    private void evict(String noticeId) {
+        forgetSnapshotRow(notices.remove(IdGenerator.parse(noticeId)));
+        bodyCache.remove(noticeId);
+        noticeIndex.remove(noticeId);
+        searchIndex.remove(noticeId);
+        markChanged(noticeId);
+        updateLiveQueries(noticeId);
+    }
+    
+    /**
+     * Count a replaced or removed cache entry out of currentSnapshotRows; its snapshot row is now dead
+     */
+    private void forgetSnapshotRow(CachedNotice previous) {
+        if (previous != null && previous.snapshotRow >= 0) {
+            currentSnapshotRows--;
+        }
+    }
+    
+    /**
+     * Tell every live query how a written notice now stands against it
+     */
+    private void updateLiveQueries(String noticeId) {
+        for (LiveQuery liveQuery : liveQueries) {
+            NoticeQuery query = liveQuery.getQuery();
+            if (query.includesArchived()) {
+                query = query.inTier(noticeIndex.indexed(noticeId) == null);
+            }
+            NoticeIndex index = query.isArchived() ? archive().index() : noticeIndex;
+            Notice current = null;
+            if (NoticeQueryPlanner.matches(query, index, noticeId, textFilter(query))) {
+                current = query.isArchived() ? archive.get(noticeId) : notice(noticeId);
+            }
+            liveQuery.update(noticeId, current);
+        }
+    }
+    
+    /**
+     * Hide a deleted notice from every query; it stays restorable for the undo window
+     */
+    private void tombstone(String noticeId) {
+        Notice deleted = fullNotice(noticeId);
+        evict(noticeId);
+        rememberDeleted(deleted);
+    }
+    
+    private void rememberDeleted(Notice deleted) {
+        if (deleted != null) {
+            recentlyDeleted.remove(deleted.getNoticeId());
+            recentlyDeleted.put(deleted.getNoticeId(), new DeletedNotice(deleted, System.currentTimeMillis()));
+            schedulePurge(UNDO_WINDOW_MS);
+        }
+    }
+    
+    /**
+     * Log a notice and put it in the tier its archive flag belongs to, taking it
+     * out of the tier it was in. Archived notices only leave a delete in the log.
+     */
+    private void store(Notice notice, boolean wasArchived) throws IOException {
+        String noticeId = notice.getNoticeId();
+        if (notice.isArchived()) {
+            if (!archive().isWritable()) {
+                throw new IOException("Archived notices could not be read");
+            }
+            if (!wasArchived && isLive(noticeId)) {
+                noticeLog.appendDelete(noticeId);
+                evict(noticeId);
+            }
+            archive.put(notice);
+            updateLiveQueries(noticeId);
+        } else {
+            noticeLog.append(notice);
+            if (wasArchived) {
+                archive().remove(noticeId);
+            }
+            cache(notice);
+        }
+        mutated();
+    }
+    
+    /**
+     * Record a mutation: stale every cached query result and schedule the group commit
+     */
+    private void mutated() {
+        generation++;
+        groupCommit.mutated();
+    }
+    
+    private void markChanged(String noticeId) {
+        if (changedDuringCompaction != null) {
+            changedDuringCompaction.add(noticeId);
+        }
+    }
+    
+    /**
+     * Get a cached notice for display. Snapshot rows are materialized on first
+     * access as list copies whose description is only a preview.
+     */
+    private Notice notice(String noticeId) {
+        CachedNotice cached = cached(noticeId);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.notice == null) {
+            cached.notice = snapshot.preview(cached.snapshotRow, DESCRIPTION_PREVIEW_LENGTH);
+        }
+        return cached.notice;
+    }
+    
+    /**
+     * Get a notice with its full description, for anything that writes it back.
+     * Snapshot rows are read into a fresh object that is not cached.
+     */
+    private Notice fullNotice(String noticeId) {
+        CachedNotice cached = cached(noticeId);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.notice != null && cached.notice.isBodyLoaded()) {
+            return cached.notice;
+        }
+        return snapshot.materialize(cached.snapshotRow);
+    }
+    
+    private void ensureSearchIndex() {
+        if (searchIndexReady) {
+            return;
+        }
+        for (CachedNotice cached : notices) {
+            if (cached.snapshotRow < 0) {
+                searchIndex.put(cached.notice);
+            } else {
+                int row = cached.snapshotRow;
+                searchIndex.put(cached.noticeId, snapshot.title(row), snapshot.description(row),
+                        snapshot.subject(row), snapshot.createdByName(row));
+            }
+        }
+        searchIndexReady = true;
+    }
+    
+    /**
+     * Move notices from the legacy SharedPreferences JSON blob into the record log
+     */
+    private void migrateLegacyNotices() {
+        String json = sharedPreferences.getString(NOTICES_KEY, null);
+        if (json == null) {
+            return;
+        }
+        if (snapshot.size() == 0 && noticeLog.isEmpty()) {
+            List<Notice> notices;
+            try {
+                notices = NoticeJson.readArray(new StringReader(json), null);
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Failed to read legacy notices", e);
+                return;
+            }
+            if (notices != null) {
+                // Old IDs ("notice_" and a millisecond timestamp) may collide, but are not
+                // numeric, so saveAllNotices gives every notice a new one
+                saveAllNotices(notices);
+            }
+        }
+        sharedPreferences.edit().remove(NOTICES_KEY).apply();
     }
     
     /**
      * Initialize some sample notices for demonstration
      */
     private void initializeSampleNotices() {
-        List<Notice> notices = getAllNotices();
         if (notices.isEmpty()) {
-            // Create sample notices
-            Notice commonNotice = new Notice(
-                "Welcome to Smart Notice Board",
-                "This is the new digital notice board system for our college. Please check regularly for updates.",
-                NoticeCategory.COMMON,
-                "admin_1",
-                "System Administrator"
-            );
-            commonNotice.setDepartment("All");
-            commonNotice.setPriority(5);
-            
-            Notice deptNotice = new Notice(
-                "CS Department Meeting",
-                "All Computer Science faculty and students are invited to the department meeting on Friday at 3 PM in Room 201.",
-                NoticeCategory.DEPARTMENT,
-                "hod_cs",
-                "Head of Department"
-            );
-            deptNotice.setDepartment("Computer Science");
-            deptNotice.setPriority(4);
-            
-            Notice annualNotice = new Notice(
-                "Annual College Fest 2024",
-                "The annual college fest will be held from March 15-17, 2024. Registration is now open for all events.",
-                NoticeCategory.ANNUAL,
-                "admin_1",
-                "System Administrator"
-            );
-            annualNotice.setDepartment("All");
-            annualNotice.setPriority(5);
-            
-            Notice subjectNotice = new Notice(
-                "Data Structures Assignment Due",
-                "The Data Structures assignment is due next Monday. Please submit your work on time.",
-                NoticeCategory.SUBJECT_SPECIFIC,
-                "teacher1",
-                "John Doe"
-            );
-            subjectNotice.setSubject("Data Structures");
-            subjectNotice.setDepartment("Computer Science");
-            subjectNotice.setPriority(3);
-            
-            notices.add(commonNotice);
-            notices.add(deptNotice);
-            notices.add(annualNotice);
-            notices.add(subjectNotice);
-            
-            saveAllNotices(notices);
-        }
-    }
-    
-    /**
-     * Get all notices from database
-     */
-    public List<Notice> getAllNotices() {
-        String json = sharedPreferences.getString(NOTICES_KEY, "[]");
-        Type listType = new TypeToken<List<Notice>>(){}.getType();
-        List<Notice> notices = gson.fromJson(json, listType);
-        return notices != null ? notices : new ArrayList<>();
-    }
-    
-    /**
-     * Save all notices to database
-     */
-    public void saveAllNotices(List<Notice> notices) {
-        String json = gson.toJson(notices);
-        sharedPreferences.edit().putString(NOTICES_KEY, json).apply();
+            saveAllNotices(SampleNotices.create());
+        }
+    }
+    
+    /**
+     * Write out every buffered change now; called at lifecycle points such as onStop
+     */
+    @Override
+    public synchronized void flush() {
+        if (!loaded) {
+            // Nothing can have been written yet
+            return;
+        }
+        try {
+            // Notices moving between tiers are in both files until both are written
+            archive.writeIfDirty();
+            noticeLog.flush();
+            archive.forgetRemoved();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to flush notices", e);
+            return;
+        }
+        // Only updates and deletes leave dead records behind; then let the purger check the ratio
+        long deadBytes = getStorageStats().getDeadBytes();
+        if (deadBytes > deadBytesAtLastFlush || archive.needsCompaction()) {
+            schedulePurge(0);
+        }
+        deadBytesAtLastFlush = deadBytes;
+    }
+    
+    /**
+     * Set how long writes may be coalesced and how many may pile up before they are flushed
+     */
+    public void setWriteCoalescing(long windowMillis, int maxPendingWrites) {
+        groupCommit.configure(windowMillis, maxPendingWrites);
+    }
+    
+    /**
+     * Get all notices from database, live ones first and then the archived ones
+     */
+    @Override
+    public synchronized List<Notice> getAllNotices() {
+        ensureLoaded();
+        List<Notice> allNotices = liveNotices();
+        allNotices.addAll(archive().notices());
+        return allNotices;
+    }
+    
+    private List<Notice> liveNotices() {
+        List<Notice> liveNotices = new ArrayList<>(notices.size());
+        for (CachedNotice cached : notices) {
+            liveNotices.add(fullNotice(cached.noticeId));
+        }
+        return liveNotices;
+    }
+    
+    /**
+     * Stream notices matching a filter straight from storage without
+     * materializing them in the in-memory cache. Only matching notices are
+     * built, so peak memory follows the result size; meant for one-off reads
+     * such as exports rather than dashboard queries.
+     */
+    @Override
+    public synchronized List<Notice> streamNotices(NoticeFilter filter) {
+        ensureLoaded();
+        List<Notice> result = new ArrayList<>();
+        for (int row = 0; row < snapshot.size(); row++) {
+            // Rows changed since the snapshot are read from the log below
+            CachedNotice cached = cached(snapshot.noticeId(row));
+            if (cached != null && cached.snapshotRow == row && filter.accept(snapshot.header(row))) {
+                result.add(snapshot.materialize(row));
+            }
+        }
+        try {
+            result.addAll(noticeLog.scan(filter));
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to stream notices", e);
+        }
+        for (Notice notice : archive().notices()) {
+            if (filter.accept(notice)) {
+                result.add(notice);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Replace all notices in the database (bulk rewrite, not used by single-notice writes)
+     */
+    @Override
+    public synchronized void saveAllNotices(List<Notice> allNotices) {
+        ensureLoaded();
+        generation++;
+        for (CachedNotice cached : notices) {
+            markChanged(cached.noticeId);
+        }
+        notices.clear();
+        currentSnapshotRows = 0;
+        noticeIndex.clear();
+        searchIndex.clear();
+        searchIndexReady = false;
+        recentlyDeleted.clear();
+        List<Notice> liveNotices = new ArrayList<>();
+        List<Notice> archivedNotices = new ArrayList<>();
+        for (Notice notice : allNotices) {
+            ensureNumericId(notice);
+            if (notice.isArchived()) {
+                archivedNotices.add(notice);
+            } else {
+                liveNotices.add(notice);
+            }
+        }
+        archive.replaceAll(archivedNotices);
+        try {
+            archive.writeIfDirty();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write archived notices", e);
+        }
+        for (Notice notice : liveNotices) {
+            cache(notice);
+        }
+        checkpoint(liveNotices);
+        // Notices dropped by the rewrite were never evicted one by one
+        for (LiveQuery liveQuery : liveQueries) {
+            liveQuery.replace(resolve(plan(liveQuery.loadedQuery())));
+        }
     }
     
     /**
      * Add a new notice
      */
-    public boolean addNotice(Notice notice) {
-        List<Notice> notices = getAllNotices();
-        notices.add(notice);
-        saveAllNotices(notices);
-        return true;
+    @Override
+    public synchronized boolean addNotice(Notice notice) {
+        ensureLoaded();
+        ensureNumericId(notice);
+        try {
+            store(notice, false);
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to add notice", e);
+            return false;
+        }
     }
     
     /**
      * Update a notice
      */
-    public boolean updateNotice(Notice updatedNotice) {
-        List<Notice> notices = getAllNotices();
-        for (int i = 0; i < notices.size(); i++) {
-            if (notices.get(i).getNoticeId().equals(updatedNotice.getNoticeId())) {
-                updatedNotice.updateTimestamp();
-                notices.set(i, updatedNotice);
-                saveAllNotices(notices);
-                return true;
+    @Override
+    public synchronized boolean updateNotice(Notice updatedNotice) {
+        ensureLoaded();
+        String noticeId = updatedNotice.getNoticeId();
+        boolean wasArchived = !isLive(noticeId);
+        if (wasArchived && !archive().contains(noticeId)) {
+            return false;
+        }
+        if (!updatedNotice.isBodyLoaded()) {
+            // Never write a preview back as the description
+            updatedNotice.setDescription(getNoticeBody(noticeId));
+        }
+        updatedNotice.updateTimestamp();
+        try {
+            store(updatedNotice, wasArchived);
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to update notice", e);
+            return false;
+        }
+    }
+    
+    /**
+     * Delete a notice. Only a tombstone is written; the notice can be brought
+     * back with restoreNotice during the undo window, and the background
+     * purger reclaims its space later.
+     */
+    @Override
+    public synchronized boolean deleteNotice(String noticeId) {
+        ensureLoaded();
+        if (!isLive(noticeId)) {
+            Notice archived = archive().remove(noticeId);
+            if (archived != null) {
+                mutated();
+                rememberDeleted(archived);
+                updateLiveQueries(noticeId);
             }
+            return true;
+        }
+        try {
+            noticeLog.appendDelete(noticeId);
+            mutated();
+            tombstone(noticeId);
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to delete notice", e);
+            return false;
         }
-        return false;
     }
     
     /**
-     * Delete a notice
+     * Apply a batch of mutations with a single log append. Mutations are
+     * checked against the state the batch builds up, so a notice added
+     * earlier in the batch can be updated or archived later in it.
      */
-    public boolean deleteNotice(String noticeId) {
-        List<Notice> notices = getAllNotices();
-        notices.removeIf(notice -> notice.getNoticeId().equals(noticeId));
-        saveAllNotices(notices);
+    @Override
+    public synchronized boolean applyBatch(List<NoticeMutation> mutations) {
+        ensureLoaded();
+        // Notices as the batch leaves them; a null value marks a delete
+        Map<String, Notice> staged = new LinkedHashMap<>();
+        // Notices the batch found in the cold tier
+        Set<String> archivedIds = new HashSet<>();
+        List<Runnable> rollback = new ArrayList<>();
+        NoticeLog.Batch batch = new NoticeLog.Batch();
+        try {
+            for (NoticeMutation mutation : mutations) {
+                String noticeId = mutation.getNoticeId();
+                Notice current = staged.containsKey(noticeId) ? staged.get(noticeId) : fullNotice(noticeId);
+                if (current == null && !staged.containsKey(noticeId) && mutation.getType() != NoticeMutation.Type.ADD) {
+                    current = archive().get(noticeId);
+                    if (current != null) {
+                        archivedIds.add(noticeId);
+                    }
+                }
+                switch (mutation.getType()) {
+                    case ADD:
+                        ensureNumericId(mutation.getNotice());
+                        staged.put(mutation.getNotice().getNoticeId(), mutation.getNotice());
+                        break;
+                    case UPDATE:
+                    case ARCHIVE:
+                        if (current == null) {
+                            undo(rollback);
+                            return false;
+                        }
+                        Notice target = mutation.getType() == NoticeMutation.Type.UPDATE ? mutation.getNotice() : current;
+                        boolean wasArchived = target.isArchived();
+                        long previousUpdatedAt = target.getUpdatedAt();
+                        rollback.add(() -> {
+                            target.setArchived(wasArchived);
+                            target.setUpdatedAt(previousUpdatedAt);
+                        });
+                        if (mutation.getType() == NoticeMutation.Type.ARCHIVE) {
+                            target.setArchived(mutation.isArchive());
+                        } else if (!target.isBodyLoaded()) {
+                            target.setDescription(current.getDescription());
+                        }
+                        target.updateTimestamp();
+                        staged.put(noticeId, target);
+                        break;
+                    case DELETE:
+                        if (current != null) {
+                            staged.put(noticeId, null);
+                        }
+                        break;
+                }
+            }
+            for (Map.Entry<String, Notice> entry : staged.entrySet()) {
+                Notice notice = entry.getValue();
+                if (notice != null && notice.isArchived() && !archive().isWritable()) {
+                    throw new IOException("Archived notices could not be read");
+                }
+                // Only the live set is logged; archived notices leave it with a delete
+                if (notice != null && !notice.isArchived()) {
+                    batch.put(notice);
+                } else if (isLive(entry.getKey())) {
+                    batch.delete(entry.getKey());
+                }
+            }
+            noticeLog.append(batch);
+            mutated();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to apply notice batch", e);
+            undo(rollback);
+            return false;
+        }
+
+        for (Map.Entry<String, Notice> entry : staged.entrySet()) {
+            String noticeId = entry.getKey();
+            Notice notice = entry.getValue();
+            boolean wasArchived = archivedIds.contains(noticeId);
+            if (notice == null) {
+                if (wasArchived) {
+                    rememberDeleted(archive.remove(noticeId));
+                    updateLiveQueries(noticeId);
+                } else {
+                    tombstone(noticeId);
+                }
+            } else if (notice.isArchived()) {
+                if (!wasArchived) {
+                    evict(noticeId);
+                }
+                archive.put(notice);
+                updateLiveQueries(noticeId);
+            } else {
+                if (wasArchived) {
+                    archive.remove(noticeId);
+                }
+                cache(notice);
+            }
+        }
         return true;
     }
     
     /**
-     * Get notices by category
+     * Archive or purge expired live notices as one batch, found through the expiry index
      */
-    public List<Notice> getNoticesByCategory(NoticeCategory category) {
-        List<Notice> notices = getAllNotices();
-        List<Notice> filteredNotices = new ArrayList<>();
-        for (Notice notice : notices) {
-            if (notice.getCategory() == category && !notice.isArchived()) {
-                filteredNotices.add(notice);
+    @Override
+    public synchronized int sweepExpired(long now, int maxNotices) {
+        ensureLoaded();
+        List<NoticeMutation> mutations = new ArrayList<>();
+        for (String noticeId : noticeIndex.expiredBy(now, maxNotices)) {
+            NoticeCategory category = noticeIndex.category(noticeId);
+            if (category != null && category.getRetentionPolicy() == RetentionPolicy.PURGE) {
+                mutations.add(NoticeMutation.delete(noticeId));
+            } else {
+                mutations.add(NoticeMutation.archive(noticeId, true));
             }
         }
-        sortNoticesByDateDesc(filteredNotices);
-        return filteredNotices;
+        if (mutations.isEmpty() || !applyBatch(mutations)) {
+            return 0;
+        }
+        return mutations.size();
+    }
+    
+    private static void undo(List<Runnable> rollback) {
+        for (int i = rollback.size() - 1; i >= 0; i--) {
+            rollback.get(i).run();
+        }
     }
     
     /**
-     * Get notices for a specific user based on their role and department
+     * Bring back a notice deleted within the undo window
      */
-    public List<Notice> getNoticesForUser(User user) {
-        List<Notice> notices = getAllNotices();
-        List<Notice> userNotices = new ArrayList<>();
-        
-        for (Notice notice : notices) {
-            if (notice.isArchived()) continue;
-            
-            // Common notices are visible to all users
-            if (notice.getCategory() == NoticeCategory.COMMON) {
-                userNotices.add(notice);
-                continue;
-            }
-            
-            // Annual notices are visible to all users
-            if (notice.getCategory() == NoticeCategory.ANNUAL) {
-                userNotices.add(notice);
-                continue;
-            }
-            
-            // Department notices are visible to users in the same department
-            if (notice.getCategory() == NoticeCategory.DEPARTMENT &&
-                user.getDepartment().equals(notice.getDepartment())) {
-                userNotices.add(notice);
-                continue;
-            }
-            
-            // Subject-specific notices are visible to students in that department
-            if (notice.getCategory() == NoticeCategory.SUBJECT_SPECIFIC &&
-                user.getDepartment().equals(notice.getDepartment())) {
-                userNotices.add(notice);
+    @Override
+    public synchronized boolean restoreNotice(String noticeId) {
+        ensureLoaded();
+        DeletedNotice deleted = recentlyDeleted.remove(noticeId);
+        if (deleted == null || isLive(noticeId)
+                || System.currentTimeMillis() - deleted.deletedAt > UNDO_WINDOW_MS
+                || (deleted.notice.isArchived() && archive().contains(noticeId))) {
+            return false;
+        }
+        try {
+            store(deleted.notice, false);
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to restore notice", e);
+            return false;
+        }
+    }
+    
+    /**
+     * Live and dead bytes in the snapshot and log, and the duration of the last compaction.
+     * Snapshot bytes are split by the share of its rows that are still current.
+     * Costs nothing: both parts are counted as records are written.
+     */
+    public synchronized NoticeStorageStats getStorageStats() {
+        ensureLoaded();
+        long snapshotBytes = snapshot.byteSize();
+        long snapshotLive = snapshot.size() == 0 ? 0 : snapshotBytes * currentSnapshotRows / snapshot.size();
+        long logLive = noticeLog.liveBytes();
+        return new NoticeStorageStats(snapshotLive + logLive,
+                snapshotBytes - snapshotLive + noticeLog.totalBytes() - logLive, lastCompactionMillis);
+    }
+    
+    /**
+     * Hits and misses of the query result cache
+     */
+    public synchronized QueryCacheStats getQueryCacheStats() {
+        return queryCache.stats();
+    }
+    
+    private void schedulePurge(long delayMillis) {
+        if (scheduledPurge != null) {
+            if (scheduledPurge.getDelay(TimeUnit.MILLISECONDS) <= delayMillis) {
+                return;
             }
+            scheduledPurge.cancel(false);
         }
-        
-        sortNoticesByDateDesc(userNotices);
-        return userNotices;
+        scheduledPurge = MAINTENANCE.schedule(this::purge, delayMillis, TimeUnit.MILLISECONDS);
     }
     
     /**
-     * Get notices created by a specific user (for teachers and admins)
+     * Background pass: forget tombstoned notices whose undo window has passed,
+     * then compact the live store and the cold tier if dead data has grown past the budget
      */
-    public List<Notice> getNoticesByCreator(String userId) {
-        List<Notice> notices = getAllNotices();
-        List<Notice> userNotices = new ArrayList<>();
-        for (Notice notice : notices) {
-            if (notice.getCreatedBy().equals(userId)) {
-                userNotices.add(notice);
+    private void purge() {
+        if (purgeLive()) {
+            compact();
+        }
+        compactArchive();
+    }
+    
+    /**
+     * Forget expired tombstones; returns whether the live store should be compacted now
+     */
+    private synchronized boolean purgeLive() {
+        scheduledPurge = null;
+        long now = System.currentTimeMillis();
+        Iterator<DeletedNotice> expired = recentlyDeleted.values().iterator();
+        while (expired.hasNext()) {
+            DeletedNotice deleted = expired.next();
+            long age = now - deleted.deletedAt;
+            if (age <= UNDO_WINDOW_MS) {
+                schedulePurge(UNDO_WINDOW_MS - age + 1);
+                break;
             }
+            expired.remove();
         }
-        sortNoticesByDateDesc(userNotices);
-        return userNotices;
+        NoticeStorageStats stats = getStorageStats();
+        if (stats.getDeadBytes() < COMPACT_MIN_DEAD_BYTES || stats.getDeadRatio() < COMPACT_DEAD_RATIO) {
+            return false;
+        }
+        if (now - lastCompactionAt < COMPACT_MIN_INTERVAL_MS) {
+            schedulePurge(COMPACT_MIN_INTERVAL_MS - (now - lastCompactionAt));
+            return false;
+        }
+        return true;
     }
     
     /**
-     * Search notices by title or description
+     * Rewrite the cold tier without its superseded records. As in compact(), the
+     * lock is only held to copy the records and to swap files.
      */
-    public List<Notice> searchNotices(String query, User user) {
-        List<Notice> userNotices = getNoticesForUser(user);
-        List<Notice> searchResults = new ArrayList<>();
-        
-        String lowercaseQuery = query.toLowerCase();
-        for (Notice notice : userNotices) {
-            if (notice.getTitle().toLowerCase().contains(lowercaseQuery) ||
-                notice.getDescription().toLowerCase().contains(lowercaseQuery)) {
-                searchResults.add(notice);
+    private void compactArchive() {
+        NoticeArchive.Compaction compaction;
+        synchronized (this) {
+            if (!archive.needsCompaction()) {
+                return;
+            }
+            compaction = archive.startCompaction();
+        }
+        try {
+            compaction.write();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write compacted archive", e);
+            return;
+        }
+        synchronized (this) {
+            try {
+                archive.finishCompaction(compaction);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to install compacted archive", e);
             }
         }
-        
-        return searchResults;
     }
     
     /**
-     * Archive/unarchive a notice
+     * Rewrite the live notices into a new snapshot and restart the log. The
+     * lock is only held to copy the notices and to swap files; writes made
+     * while the snapshot is being written are logged again on top of it.
      */
-    public boolean archiveNotice(String noticeId, boolean archive) {
-        List<Notice> notices = getAllNotices();
-        for (Notice notice : notices) {
-            if (notice.getNoticeId().equals(noticeId)) {
-                notice.setArchived(archive);
-                notice.updateTimestamp();
-                saveAllNotices(notices);
-                return true;
+    private void compact() {
+        long start = System.nanoTime();
+        List<Notice> liveNotices;
+        synchronized (this) {
+            if (changedDuringCompaction != null) {
+                return;
+            }
+            flush();
+            liveNotices = liveNotices();
+            changedDuringCompaction = new HashSet<>();
+        }
+        try {
+            NoticeSnapshot.write(compactionFile, liveNotices);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write compacted notices", e);
+            synchronized (this) {
+                changedDuringCompaction = null;
             }
+            return;
+        }
+        synchronized (this) {
+            Set<String> changedIds = changedDuringCompaction;
+            changedDuringCompaction = null;
+            try {
+                if (!compactionFile.renameTo(snapshotFile)) {
+                    throw new IOException("Could not replace " + snapshotFile);
+                }
+                swapSnapshot(NoticeSnapshot.open(snapshotFile), liveNotices, changedIds);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to install compacted notices", e);
+                return;
+            }
+            lastCompactionAt = System.currentTimeMillis();
+            lastCompactionMillis = (System.nanoTime() - start) / 1_000_000;
         }
-        return false;
     }
     
     /**
-     * Get archived notices
+     * Get notices by category
      */
-    public List<Notice> getArchivedNotices() {
-        List<Notice> notices = getAllNotices();
-        List<Notice> archivedNotices = new ArrayList<>();
-        for (Notice notice : notices) {
-            if (notice.isArchived()) {
-                archivedNotices.add(notice);
+    @Override
+    public synchronized List<Notice> getNoticesByCategory(NoticeCategory category) {
+        ensureLoaded();
+        return cachedList(new QueryCache.Key("category:" + category, 0, 0),
+                () -> resolve(noticeIndex.liveInCategory(category)));
+    }
+    
+    /**
+     * Get one page of notices by category, starting after the given cursor (null for the first page)
+     */
+    @Override
+    public synchronized NoticePage getNoticesByCategory(NoticeCategory category, String afterCursor, int limit) {
+        ensureLoaded();
+        return cachedPage(new QueryCache.Key(pageQuery("category:" + category, afterCursor, limit), 0, 0),
+                () -> page(noticeIndex.liveInCategory(category), afterCursor, limit));
+    }
+    
+    /**
+     * Get notices for a specific user based on their role and department
+     */
+    @Override
+    public synchronized List<Notice> getNoticesForUser(User user) {
+        ensureLoaded();
+        return cachedList(audienceKey("feed", user), () -> resolve(noticeIndex.feedForAudience(
+                user.getAudience(), user.getDepartmentCode(), null, Integer.MAX_VALUE)));
+    }
+    
+    /**
+     * Get one page of the notices visible to a user, starting after the given cursor (null for the first page)
+     */
+    @Override
+    public synchronized NoticePage getNoticesForUser(User user, String afterCursor, int limit) {
+        ensureLoaded();
+        return cachedPage(audienceKey(pageQuery("feed", afterCursor, limit), user), () -> toPage(
+                noticeIndex.feedForAudience(user.getAudience(), user.getDepartmentCode(),
+                        NoticeIndex.Key.fromCursor(afterCursor), limit + 1), limit));
+    }
+    
+    /**
+     * Get notices created by a specific user (for teachers and admins)
+     */
+    @Override
+    public synchronized List<Notice> getNoticesByCreator(String userId) {
+        ensureLoaded();
+        return cachedList(new QueryCache.Key("creator:" + userId, 0, 0),
+                () -> resolve(createdBy(userId, null, Integer.MAX_VALUE)));
+    }
+    
+    /**
+     * Get one page of the notices created by a specific user
+     */
+    @Override
+    public synchronized NoticePage getNoticesByCreator(String userId, String afterCursor, int limit) {
+        ensureLoaded();
+        return cachedPage(new QueryCache.Key(pageQuery("creator:" + userId, afterCursor, limit), 0, 0),
+                () -> toPage(createdBy(userId, NoticeIndex.Key.fromCursor(afterCursor), limit + 1), limit));
+    }
+    
+    /**
+     * Merge a creator's live and archived notices, newest first
+     */
+    private List<NoticeIndex.Key> createdBy(String userId, NoticeIndex.Key after, int limit) {
+        int creator = StringDictionary.lookup(userId);
+        if (creator == StringDictionary.NONE) {
+            // Never seen, so the user has no notices
+            return new ArrayList<>();
+        }
+        List<Iterator<NoticeIndex.Key>> sources = new ArrayList<>();
+        sources.add(NoticeIndex.tail(noticeIndex.createdBy(creator), after).iterator());
+        sources.add(NoticeIndex.tail(archive().createdBy(creator), after).iterator());
+        return NoticeIndex.merge(sources, limit);
+    }
+    
+    /**
+     * Search notices visible to the user by title, description, subject or author.
+     * Every word in the query must match the start of a word in the notice.
+     */
+    @Override
+    public synchronized List<Notice> searchNotices(String query, User user) {
+        ensureLoaded();
+        return cachedList(audienceKey("search:" + query, user), () -> search(query, user));
+    }
+    
+    private List<Notice> search(String query, User user) {
+        ensureSearchIndex();
+        TreeMap<NoticeIndex.Key, Notice> searchResults = new TreeMap<>();
+        for (String noticeId : searchIndex.search(query)) {
+            Notice notice = notice(noticeId);
+            if (notice.isVisibleTo(user)) {
+                searchResults.put(new NoticeIndex.Key(notice.getCreatedAt(), noticeId), notice);
             }
         }
-        sortNoticesByDateDesc(archivedNotices);
-        return archivedNotices;
+        return new ArrayList<>(searchResults.values());
+    }
+    
+    /**
+     * Run a combination of filters through the planner (see NoticeQueryPlanner).
+     * Archived queries read the cold tier's index; their text is checked last,
+     * against the notices that pass every other filter. Queries over both tiers
+     * run on each and merge the results.
+     */
+    @Override
+    public synchronized List<Notice> query(NoticeQuery query) {
+        ensureLoaded();
+        QueryCache.Key key = query.getVisibleTo() != null
+                ? audienceKey("query:" + query, query.getVisibleTo())
+                : new QueryCache.Key("query:" + query, 0, 0);
+        return cachedList(key, () -> resolve(plan(query)));
+    }
+    
+    private List<NoticeIndex.Key> plan(NoticeQuery query) {
+        if (query.includesArchived()) {
+            return NoticeQueryPlanner.mergeTiers(query, plan(query.inTier(false)), noticeIndex,
+                    plan(query.inTier(true)), archive().index());
+        }
+        String text = query.getText();
+        if (query.isArchived()) {
+            return NoticeQueryPlanner.run(query, archive().index(), null, textFilter(query));
+        }
+        Set<String> textMatches = null;
+        if (text != null) {
+            ensureSearchIndex();
+            textMatches = searchIndex.search(text);
+        }
+        return NoticeQueryPlanner.run(query, noticeIndex, textMatches, null);
+    }
+    
+    /**
+     * The query's text as a residual filter on notice IDs, or null if it has none
+     */
+    private Predicate<String> textFilter(NoticeQuery query) {
+        String text = query.getText();
+        if (text == null) {
+            return null;
+        }
+        if (query.isArchived()) {
+            NoticeArchive cold = archive();
+            return noticeId -> NoticeSearchIndex.matches(text, cold.get(noticeId));
+        }
+        return noticeId -> NoticeSearchIndex.matches(text, fullNotice(noticeId));
+    }
+    
+    /**
+     * Keep a query's results up to date. The first page is loaded in the
+     * background; after that each write costs a binary search per live query
+     * and per notice it touches, plus the events it delivers.
+     */
+    @Override
+    public LiveQuery observe(NoticeQuery query, int pageSize, Executor executor, LiveQuery.Listener listener) {
+        LiveQuery liveQuery = new LiveQuery(query, pageSize, executor, listener, liveQueryOwner);
+        liveQueries.add(liveQuery);
+        liveQuery.loadMore();
+        return liveQuery;
+    }
+    
+    /**
+     * Archive/unarchive a notice, moving it to or from the cold tier
+     */
+    @Override
+    public synchronized boolean archiveNotice(String noticeId, boolean archive) {
+        ensureLoaded();
+        boolean wasArchived = !isLive(noticeId);
+        Notice notice = wasArchived ? archive().get(noticeId) : fullNotice(noticeId);
+        if (notice == null) {
+            return false;
+        }
+        if (wasArchived == archive) {
+            return true;
+        }
+        // The live notice is the cached instance, so put it back as it was if the store fails
+        long previousUpdatedAt = notice.getUpdatedAt();
+        notice.setArchived(archive);
+        notice.updateTimestamp();
+        try {
+            store(notice, wasArchived);
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to archive notice", e);
+            notice.setArchived(wasArchived);
+            notice.setUpdatedAt(previousUpdatedAt);
+            return false;
+        }
+    }
+    
+    /**
+     * Get archived notices; only reads the cold tier
+     */
+    @Override
+    public synchronized List<Notice> getArchivedNotices() {
+        ensureLoaded();
+        return cachedList(new QueryCache.Key("archived", 0, 0), () -> resolve(archive().all()));
+    }
+    
+    /**
+     * Get one page of archived notices
+     */
+    @Override
+    public synchronized NoticePage getArchivedNotices(String afterCursor, int limit) {
+        ensureLoaded();
+        return cachedPage(new QueryCache.Key(pageQuery("archived", afterCursor, limit), 0, 0),
+                () -> page(archive().all(), afterCursor, limit));
+    }
+    
+    /**
+     * Cache key of a query whose result depends on who asks. The department
+     * only matters when the user's department has no Audience bit of its own.
+     */
+    private static QueryCache.Key audienceKey(String query, User user) {
+        long audience = user.getAudience();
+        int department = (audience & Audience.SHARED_DEPARTMENTS) != 0 ? user.getDepartmentCode() : 0;
+        return new QueryCache.Key(query, audience, department);
+    }
+    
+    private static String pageQuery(String query, String afterCursor, int limit) {
+        return query + "|" + afterCursor + "|" + limit;
+    }
+    
+    /**
+     * Run a list query through the result cache. Callers get their own copy of the list.
+     */
+    private List<Notice> cachedList(QueryCache.Key key, Supplier<List<Notice>> query) {
+        List<Notice> result = queryCache.get(key, generation);
+        if (result == null) {
+            result = query.get();
+            queryCache.put(key, generation, result);
+        }
+        return new ArrayList<>(result);
+    }
+    
+    private NoticePage cachedPage(QueryCache.Key key, Supplier<NoticePage> query) {
+        NoticePage page = queryCache.get(key, generation);
+        if (page == null) {
+            page = query.get();
+            queryCache.put(key, generation, page);
+        }
+        return new NoticePage(new ArrayList<>(page.getNotices()), page.getNextCursor());
     }
     
     /**
-     * Sort notices by creation date (newest first)
+     * Look up the notices for a posting list, in the live set or else the cold tier
      */
-    private void sortNoticesByDateDesc(List<Notice> notices) {
-        Collections.sort(notices, new Comparator<Notice>() {
-            @Override
-            public int compare(Notice n1, Notice n2) {
-                return Long.compare(n2.getCreatedAt(), n1.getCreatedAt());
+    private List<Notice> resolve(Collection<NoticeIndex.Key> keys) {
+        List<Notice> result = new ArrayList<>(keys.size());
+        for (NoticeIndex.Key key : keys) {
+            Notice notice = notice(key.noticeId);
+            result.add(notice != null ? notice : archive.get(key.noticeId));
+        }
+        return result;
+    }
+    
+    /**
+     * Read one page from an ordered posting list
+     */
+    private NoticePage page(NavigableSet<NoticeIndex.Key> postings, String afterCursor, int limit) {
+        List<NoticeIndex.Key> keys = new ArrayList<>();
+        for (NoticeIndex.Key key : NoticeIndex.tail(postings, NoticeIndex.Key.fromCursor(afterCursor))) {
+            // Fetch one extra key to know whether another page exists
+            if (keys.size() > limit) {
+                break;
             }
-        });
+            keys.add(key);
+        }
+        return toPage(keys, limit);
+    }
+    
+    private NoticePage toPage(List<NoticeIndex.Key> keys, int limit) {
+        if (keys.size() <= limit) {
+            return new NoticePage(resolve(keys), null);
+        }
+        List<NoticeIndex.Key> pageKeys = keys.subList(0, limit);
+        return new NoticePage(resolve(pageKeys), pageKeys.get(limit - 1).toCursor());
     }
     
     /**
      * Get notice by ID
      */
-    public Notice getNoticeById(String noticeId) {
-        List<Notice> notices = getAllNotices();
-        for (Notice notice : notices) {
-            if (notice.getNoticeId().equals(noticeId)) {
-                return notice;
+    @Override
+    public synchronized Notice getNoticeById(String noticeId) {
+        ensureLoaded();
+        Notice notice = notice(noticeId);
+        return notice != null ? notice : archive().get(noticeId);
+    }
+    
+    /**
+     * Get the full description of a notice, through a small cache of recently opened ones
+     */
+    @Override
+    public synchronized String getNoticeBody(String noticeId) {
+        ensureLoaded();
+        CachedNotice cached = cached(noticeId);
+        if (cached == null) {
+            Notice archived = archive().get(noticeId);
+            return archived != null ? archived.getDescription() : null;
+        }
+        if (cached.notice != null && cached.notice.isBodyLoaded()) {
+            return cached.notice.getDescription();
+        }
+        String body = bodyCache.get(noticeId);
+        if (body == null) {
+            body = snapshot.description(cached.snapshotRow);
+            if (body != null) {
+                bodyCache.put(noticeId, body);
             }
         }
-        return null;
+        return body;
+    }
+    
+    /**
+     * Get a notice with its full description loaded, e.g. to edit it
+     */
+    @Override
+    public synchronized Notice getFullNotice(String noticeId) {
+        ensureLoaded();
+        Notice notice = fullNotice(noticeId);
+        return notice != null ? notice : archive().get(noticeId);
+    }
+    
+    /**
+     * Cache entry: either a materialized notice or a row of the current snapshot
+     */
+    private static class CachedNotice {
+        final String noticeId;
+        int snapshotRow;
+        Notice notice;
+        
+        CachedNotice(String noticeId, int snapshotRow) {
+            this.noticeId = noticeId;
+            this.snapshotRow = snapshotRow;
+        }
+        
+        CachedNotice(Notice notice) {
+            this.noticeId = notice.getNoticeId();
+            this.snapshotRow = -1;
+            this.notice = notice;
+        }
+    }
+    
+    private static class DeletedNotice {
+        final Notice notice;
+        final long deletedAt;
+        
+        DeletedNotice(Notice notice, long deletedAt) {
+            this.notice = notice;
+            this.deletedAt = deletedAt;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,12 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Notice;
+
+/**
+ * Predicate evaluated against a notice while it is being streamed from storage.
+ * Only the header fields are guaranteed to be populated when accept() is
+ * called; description and attachments may not have been read yet.
+ */
+public interface NoticeFilter {
+    boolean accept(Notice header);
+}
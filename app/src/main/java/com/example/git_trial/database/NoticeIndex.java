@@ -0,0 +1,389 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Audience;
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.NoticeCategory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Incremental secondary indexes over the cached notices. Every posting list is
+ * kept newest first (see Key), so queries never sort and can start from a
+ * keyset cursor. The lists returned are live views and must not be modified.
+ */
+class NoticeIndex {
+    // Shared empty posting list; callers only ever read the returned sets
+    private static final NavigableSet<Key> NO_KEYS = new TreeSet<>();
+
+    // Category and audience postings only hold live notices, as every tab query asks for those
+    private final Map<NoticeCategory, NavigableSet<Key>> liveByCategory = new EnumMap<>(NoticeCategory.class);
+    // Index = Audience bit, so a feed merges the lists of the bits the user holds; null for bits no live notice has
+    private final List<NavigableSet<Key>> liveByAudienceBit = new ArrayList<>(Collections.nCopies(Long.SIZE, null));
+    // Keyed by the creator's StringDictionary code
+    private final Map<Integer, NavigableSet<Key>> byCreator = new HashMap<>();
+    // Archived notices have one list of their own
+    private final NavigableSet<Key> archived = new TreeSet<>();
+    // For the retention sweeper. Keys carry the expiry time in place of createdAt, so the soonest expiry comes last
+    private final NavigableSet<Key> liveByExpiry = new TreeSet<>();
+    // The keys each notice was indexed under, so an update removes the old postings
+    // even if the Notice object was changed in place
+    private final Map<String, IndexedKeys> indexedKeys = new HashMap<>();
+
+    /**
+     * Index a new notice or re-index an updated one
+     */
+    void put(Notice notice) {
+        put(notice.getNoticeId(), notice.getCreatedAt(), notice.getCategory(), notice.getDepartmentCode(),
+            notice.getAudience(), notice.getCreatedByCode(), notice.getPriority(), notice.isArchived(),
+            notice.getExpiresAt());
+    }
+
+    /**
+     * Index a notice from its raw fields, without a materialized Notice
+     */
+    void put(String noticeId, long createdAt, NoticeCategory category, int department, long audience,
+             int createdBy, int priority, boolean isArchived, long expiresAt) {
+        remove(noticeId);
+        Key expiryKey = expiresAt > 0 && !isArchived ? new Key(expiresAt, noticeId) : null;
+        IndexedKeys keys = new IndexedKeys(new Key(createdAt, noticeId), category, department, audience,
+                createdBy, priority, isArchived, expiryKey);
+        indexedKeys.put(noticeId, keys);
+
+        if (keys.archived) {
+            archived.add(keys.key);
+        } else {
+            if (keys.category != null) {
+                postings(liveByCategory, keys.category).add(keys.key);
+            }
+            for (long bits = keys.audience; bits != 0; bits &= bits - 1) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                NavigableSet<Key> postings = liveByAudienceBit.get(bit);
+                if (postings == null) {
+                    postings = new TreeSet<>();
+                    liveByAudienceBit.set(bit, postings);
+                }
+                postings.add(keys.key);
+            }
+        }
+        if (keys.expiryKey != null) {
+            liveByExpiry.add(keys.expiryKey);
+        }
+        postings(byCreator, keys.createdBy).add(keys.key);
+    }
+
+    /**
+     * Drop a notice from every index
+     */
+    void remove(String noticeId) {
+        IndexedKeys keys = indexedKeys.remove(noticeId);
+        if (keys == null) {
+            return;
+        }
+        if (keys.archived) {
+            archived.remove(keys.key);
+        } else {
+            if (keys.category != null) {
+                removePosting(liveByCategory, keys.category, keys.key);
+            }
+            for (long bits = keys.audience; bits != 0; bits &= bits - 1) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                NavigableSet<Key> postings = liveByAudienceBit.get(bit);
+                postings.remove(keys.key);
+                if (postings.isEmpty()) {
+                    liveByAudienceBit.set(bit, null);
+                }
+            }
+        }
+        if (keys.expiryKey != null) {
+            liveByExpiry.remove(keys.expiryKey);
+        }
+        removePosting(byCreator, keys.createdBy, keys.key);
+    }
+
+    void clear() {
+        liveByCategory.clear();
+        Collections.fill(liveByAudienceBit, null);
+        byCreator.clear();
+        archived.clear();
+        liveByExpiry.clear();
+        indexedKeys.clear();
+    }
+
+    NavigableSet<Key> liveInCategory(NoticeCategory category) {
+        return view(liveByCategory.get(category));
+    }
+
+    /**
+     * Live notices whose audience includes the given Audience bit
+     */
+    NavigableSet<Key> liveForAudienceBit(int bit) {
+        return view(liveByAudienceBit.get(bit));
+    }
+
+    NavigableSet<Key> createdBy(int userId) {
+        return view(byCreator.get(userId));
+    }
+
+    NavigableSet<Key> archived() {
+        return archived;
+    }
+
+    /**
+     * IDs of live notices that expired at or before the given time, soonest expiry first
+     */
+    List<String> expiredBy(long time, int limit) {
+        List<String> expired = new ArrayList<>();
+        for (Key key : liveByExpiry.descendingSet()) {
+            if (key.createdAt > time || expired.size() >= limit) {
+                break;
+            }
+            expired.add(key.noticeId);
+        }
+        return expired;
+    }
+
+    /**
+     * Category a notice was indexed under, or null if it is not indexed
+     */
+    NoticeCategory category(String noticeId) {
+        IndexedKeys keys = indexedKeys.get(noticeId);
+        return keys != null ? keys.category : null;
+    }
+
+    /**
+     * The indexed fields of a notice, or null if it is not indexed
+     */
+    IndexedKeys indexed(String noticeId) {
+        return indexedKeys.get(noticeId);
+    }
+
+    /**
+     * Live notices visible to a member with the given Audience bitmap and
+     * department, newest first: a merge of the postings of each bit the member
+     * holds. Stops after limit keys.
+     */
+    List<Key> feedForAudience(long audience, int department, Key after, int limit) {
+        List<Iterator<Key>> sources = new ArrayList<>();
+        for (long bits = audience; bits != 0; bits &= bits - 1) {
+            int bit = Long.numberOfTrailingZeros(bits);
+            Iterator<Key> postings = tail(liveForAudienceBit(bit), after).iterator();
+            if (1L << bit == Audience.SHARED_DEPARTMENTS) {
+                postings = new SameDepartmentIterator(postings, department);
+            }
+            sources.add(postings);
+        }
+        return merge(sources, limit);
+    }
+
+    /**
+     * The part of a posting list that comes after the cursor key
+     */
+    static NavigableSet<Key> tail(NavigableSet<Key> postings, Key after) {
+        return after != null ? postings.tailSet(after, false) : postings;
+    }
+
+    /**
+     * The part of a posting list created at or after from and before until
+     */
+    static NavigableSet<Key> createdBetween(NavigableSet<Key> postings, long from, long until) {
+        if (until != Long.MAX_VALUE) {
+            // Newest first, so the keys created before until start at the first key of until - 1
+            postings = postings.tailSet(new Key(until - 1, ""), true);
+        }
+        if (from != Long.MIN_VALUE) {
+            postings = postings.headSet(new Key(from - 1, ""), false);
+        }
+        return postings;
+    }
+
+    /**
+     * Merge newest-first key streams into one newest-first list of at most limit keys
+     */
+    static List<Key> merge(List<Iterator<Key>> sources, int limit) {
+        return merge(sources, Comparator.naturalOrder(), key -> true, limit);
+    }
+
+    /**
+     * Merge key streams sorted by the given order into one list of at most limit
+     * keys that pass the filter. A key found in several streams is kept once.
+     */
+    static List<Key> merge(List<Iterator<Key>> sources, Comparator<Key> order, Predicate<Key> filter, int limit) {
+        List<Key> result = new ArrayList<>();
+        Key last = null;
+        Key[] heads = new Key[sources.size()];
+        for (int i = 0; i < heads.length; i++) {
+            heads[i] = sources.get(i).hasNext() ? sources.get(i).next() : null;
+        }
+        while (result.size() < limit) {
+            int best = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] != null && (best < 0 || order.compare(heads[i], heads[best]) < 0)) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            if (!heads[best].equals(last) && filter.test(heads[best])) {
+                result.add(heads[best]);
+            }
+            last = heads[best];
+            heads[best] = sources.get(best).hasNext() ? sources.get(best).next() : null;
+        }
+        return result;
+    }
+
+    private static <K> NavigableSet<Key> postings(Map<K, NavigableSet<Key>> index, K key) {
+        NavigableSet<Key> keys = index.get(key);
+        if (keys == null) {
+            keys = new TreeSet<>();
+            index.put(key, keys);
+        }
+        return keys;
+    }
+
+    private static <K> void removePosting(Map<K, NavigableSet<Key>> index, K key, Key noticeKey) {
+        NavigableSet<Key> keys = index.get(key);
+        if (keys != null) {
+            keys.remove(noticeKey);
+            if (keys.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static NavigableSet<Key> view(NavigableSet<Key> keys) {
+        return keys != null ? keys : NO_KEYS;
+    }
+
+    /**
+     * Filters the posting list of the shared department bit down to one
+     * department, since departments without a bit of their own all use it
+     */
+    private class SameDepartmentIterator implements Iterator<Key> {
+        private final Iterator<Key> source;
+        private final int department;
+        private Key next;
+
+        SameDepartmentIterator(Iterator<Key> source, int department) {
+            this.source = source;
+            this.department = department;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (source.hasNext()) {
+                Key candidate = source.next();
+                if (indexedKeys.get(candidate.noticeId).department == department) {
+                    next = candidate;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Key next() {
+            Key current = next;
+            advance();
+            return current;
+        }
+    }
+
+    /**
+     * Sort key of a notice: newest first, ties broken by notice ID so that
+     * every key is unique and usable as a stable keyset cursor
+     */
+    static final class Key implements Comparable<Key> {
+        final long createdAt;
+        final String noticeId;
+
+        Key(long createdAt, String noticeId) {
+            this.createdAt = createdAt;
+            this.noticeId = noticeId;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byDate = Long.compare(other.createdAt, createdAt);
+            return byDate != 0 ? byDate : noticeId.compareTo(other.noticeId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return createdAt == other.createdAt && noticeId.equals(other.noticeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(createdAt) + noticeId.hashCode();
+        }
+
+        String toCursor() {
+            return createdAt + ":" + noticeId;
+        }
+
+        /**
+         * Parse a cursor produced by toCursor(); null or malformed cursors start from the top
+         */
+        static Key fromCursor(String cursor) {
+            if (cursor == null) {
+                return null;
+            }
+            int separator = cursor.indexOf(':');
+            if (separator <= 0) {
+                return null;
+            }
+            try {
+                return new Key(Long.parseLong(cursor.substring(0, separator)), cursor.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the indexed fields of a notice at the time it was indexed
+     */
+    static final class IndexedKeys {
+        final Key key;
+        final NoticeCategory category;
+        final int department;
+        final long audience;
+        final int createdBy;
+        final int priority;
+        final boolean archived;
+        final Key expiryKey;
+
+        IndexedKeys(Key key, NoticeCategory category, int department, long audience, int createdBy,
+                    int priority, boolean archived, Key expiryKey) {
+            this.key = key;
+            this.category = category;
+            this.department = department;
+            this.audience = audience;
+            this.createdBy = createdBy;
+            this.priority = priority;
+            this.archived = archived;
+            this.expiryKey = expiryKey;
+        }
+    }
+}
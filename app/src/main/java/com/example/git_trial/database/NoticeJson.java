@@ -0,0 +1,169 @@
+package com.example.git_trial.database;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.NoticeCategory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for notices stored as JSON (the legacy SharedPreferences
+ * blob and log records written before BinaryCodec), built on Gson's
+ * JsonReader. Field names match Gson's reflective format. When the header
+ * fields precede description and attachments (category last), the filter is
+ * evaluated as soon as the header is complete and the bodies of rejected
+ * notices are skipped without building strings. Input in Gson's own field
+ * order (description before category) is still read correctly and filtered
+ * once the object ends.
+ */
+final class NoticeJson {
+
+    private NoticeJson() {
+    }
+
+    /**
+     * Decode a single notice, or return null if the filter rejects it
+     */
+    static Notice fromBytes(byte[] data, int offset, int length, NoticeFilter filter) throws IOException {
+        Reader in = new InputStreamReader(new ByteArrayInputStream(data, offset, length), StandardCharsets.UTF_8);
+        try (JsonReader reader = new JsonReader(in)) {
+            return read(reader, filter);
+        }
+    }
+
+    /**
+     * Stream a JSON array of notices, keeping only those the filter accepts
+     */
+    static List<Notice> readArray(Reader in, NoticeFilter filter) throws IOException {
+        List<Notice> notices = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(in)) {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return notices;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                Notice notice = read(reader, filter);
+                if (notice != null) {
+                    notices.add(notice);
+                }
+            }
+            reader.endArray();
+        }
+        return notices;
+    }
+
+    /**
+     * Read one notice object, or skip it and return null if the filter rejects it
+     */
+    static Notice read(JsonReader reader, NoticeFilter filter) throws IOException {
+        Notice notice = new Notice();
+        notice.setAttachments(null);
+        boolean headerComplete = false;
+        boolean bodyBeforeHeader = false;
+        Boolean accepted = filter == null ? Boolean.TRUE : null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "noticeId":
+                    notice.setNoticeId(reader.nextString());
+                    break;
+                case "title":
+                    notice.setTitle(reader.nextString());
+                    break;
+                case "category":
+                    notice.setCategory(parseCategory(reader.nextString()));
+                    // In our layout category is the last header field; in Gson's it precedes more header fields
+                    headerComplete = !bodyBeforeHeader;
+                    break;
+                case "createdBy":
+                    notice.setCreatedBy(reader.nextString());
+                    break;
+                case "createdByName":
+                    notice.setCreatedByName(reader.nextString());
+                    break;
+                case "createdAt":
+                    notice.setCreatedAt(reader.nextLong());
+                    break;
+                case "updatedAt":
+                    notice.setUpdatedAt(reader.nextLong());
+                    break;
+                case "isArchived":
+                    notice.setArchived(reader.nextBoolean());
+                    break;
+                case "department":
+                    notice.setDepartment(reader.nextString());
+                    break;
+                case "subject":
+                    notice.setSubject(reader.nextString());
+                    break;
+                case "priority":
+                    notice.setPriority(reader.nextInt());
+                    break;
+                case "description":
+                case "attachments":
+                    if (accepted == null && headerComplete) {
+                        accepted = filter.accept(notice);
+                    }
+                    bodyBeforeHeader |= !headerComplete;
+                    if (Boolean.FALSE.equals(accepted)) {
+                        reader.skipValue();
+                    } else if (name.equals("description")) {
+                        notice.setDescription(reader.nextString());
+                    } else {
+                        notice.setAttachments(readStrings(reader));
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (accepted == null) {
+            accepted = filter.accept(notice);
+        }
+        if (!accepted) {
+            return null;
+        }
+        if (notice.getAttachments() == null) {
+            notice.setAttachments(new ArrayList<>());
+        }
+        return notice;
+    }
+
+    private static List<String> readStrings(JsonReader reader) throws IOException {
+        List<String> values = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+            } else {
+                values.add(reader.nextString());
+            }
+        }
+        reader.endArray();
+        return values;
+    }
+
+    private static NoticeCategory parseCategory(String name) {
+        try {
+            return NoticeCategory.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
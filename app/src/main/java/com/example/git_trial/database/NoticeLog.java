@@ -0,0 +1,375 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Notice;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Append-only record log used as the storage engine behind NoticeDatabase.
+ * Every mutation appends a single record and an in-memory offset table points
+ * at the latest record for each notice, so a write costs one record of I/O
+ * instead of a rewrite of the whole notice list. Appended records are
+ * buffered until flush(), which writes them all with one append. The log
+ * holds the changes made since the last NoticeSnapshot checkpoint; deletes of
+ * notices that only exist in the snapshot are remembered in deletedIds.
+ *
+ * Record layout: [int bodyLength][byte type][short idLength][id bytes][payload]
+ * A batch is one record with an empty ID whose payload is the inner records,
+ * so a batch torn by a crash is dropped as a whole.
+ * Payloads are BinaryCodec notices. Segments written before the binary
+ * format held JSON payloads (first byte '{'); those are still readable and
+ * needsCheckpoint() reports them so they get folded into a binary snapshot.
+ */
+class NoticeLog {
+    private static final byte RECORD_PUT = 1;
+    private static final byte RECORD_DELETE = 2;
+    // Frame around several records that must be applied together; its payload is the inner records
+    private static final byte RECORD_BATCH = 3;
+    private static final int RECORD_HEADER_SIZE = 4 + 1 + 2;
+
+    // Fold the log into a snapshot once replaying it would cost this many records
+    private static final int CHECKPOINT_RECORDS = 256;
+
+    private final File segmentFile;
+    private final Map<String, Long> offsets = new LinkedHashMap<>();
+    private final Map<String, Integer> liveLengths = new HashMap<>();
+    private final Set<String> deletedIds = new HashSet<>();
+    private long liveBytes;
+    private int recordCount;
+    private int jsonRecordCount;
+    private long segmentLength;
+    // Records appended since the last flush; their offsets already point past segmentLength
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+
+    NoticeLog(File segmentFile) throws IOException {
+        this.segmentFile = segmentFile;
+        replay();
+    }
+
+    /**
+     * Whether the log is long enough (or still holds legacy JSON records) to
+     * be worth folding into a new snapshot
+     */
+    synchronized boolean needsCheckpoint() {
+        return jsonRecordCount > 0 || recordCount >= CHECKPOINT_RECORDS;
+    }
+
+    /**
+     * Whether nothing has been written since the last checkpoint
+     */
+    synchronized boolean isEmpty() {
+        return recordCount == 0;
+    }
+
+    /**
+     * Bytes of the latest record of every notice written since the last checkpoint
+     */
+    synchronized long liveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Bytes in the log, flushed or not
+     */
+    synchronized long totalBytes() {
+        return segmentLength + pending.size();
+    }
+
+    /**
+     * IDs deleted since the last checkpoint and not re-added
+     */
+    synchronized Set<String> deletedIds() {
+        return new HashSet<>(deletedIds);
+    }
+
+    /**
+     * Read the latest version of every notice written since the last checkpoint, in first-insertion order
+     */
+    synchronized List<Notice> readAll() throws IOException {
+        return scan(null);
+    }
+
+    /**
+     * Stream the live records and decode only the notices the filter accepts
+     * (null accepts everything). Rejected records are skipped without decoding
+     * their description or attachments.
+     */
+    synchronized List<Notice> scan(NoticeFilter filter) throws IOException {
+        flush();
+        List<Notice> notices = new ArrayList<>();
+        if (offsets.isEmpty()) {
+            return notices;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile, "r")) {
+            for (long offset : offsets.values()) {
+                Notice notice = readRecordAt(file, offset, filter);
+                if (notice != null) {
+                    notices.add(notice);
+                }
+            }
+        }
+        return notices;
+    }
+
+    /**
+     * Write every pending record to the segment with one append and fsync.
+     * On failure the segment is cut back and the records stay pending.
+     */
+    synchronized void flush() throws IOException {
+        if (pending.size() == 0) {
+            return;
+        }
+        try (FileOutputStream out = new FileOutputStream(segmentFile, true)) {
+            pending.writeTo(out);
+            out.getFD().sync();
+        } catch (IOException e) {
+            try (RandomAccessFile file = new RandomAccessFile(segmentFile, "rw")) {
+                file.setLength(segmentLength);
+            } catch (IOException ignored) {
+                // Replay truncates a torn tail anyway
+            }
+            throw e;
+        }
+        segmentLength += pending.size();
+        pending.reset();
+    }
+
+    /**
+     * Append a new version of a notice (buffered until the next flush)
+     */
+    synchronized void append(Notice notice) throws IOException {
+        byte[] payload = BinaryCodec.encodeNotice(notice);
+        long offset = appendRecord(RECORD_PUT, notice.getNoticeId(), payload);
+        putLive(notice.getNoticeId(), offset, (int) (segmentLength + pending.size() - offset));
+    }
+
+    /**
+     * Append a delete marker for a notice (buffered until the next flush)
+     */
+    synchronized void appendDelete(String noticeId) throws IOException {
+        appendRecord(RECORD_DELETE, noticeId, new byte[0]);
+        markDeleted(noticeId);
+    }
+
+    /**
+     * Append every record of a batch as one framed record; either all of them survive a crash or none do
+     */
+    synchronized void append(Batch batch) throws IOException {
+        if (batch.ids.isEmpty()) {
+            return;
+        }
+        long offset = appendRecord(RECORD_BATCH, "", batch.bytes.toByteArray());
+        recordCount += batch.ids.size() - 1;
+        for (int i = 0; i < batch.ids.size(); i++) {
+            String noticeId = batch.ids.get(i);
+            if (batch.types.get(i) == RECORD_PUT) {
+                putLive(noticeId, offset + RECORD_HEADER_SIZE + batch.offsets.get(i), batch.lengths.get(i));
+            } else {
+                markDeleted(noticeId);
+            }
+        }
+    }
+
+    /**
+     * Empty the log after its contents have been folded into a snapshot
+     */
+    synchronized void reset() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile, "rw")) {
+            file.setLength(0);
+        }
+        offsets.clear();
+        liveLengths.clear();
+        liveBytes = 0;
+        deletedIds.clear();
+        recordCount = 0;
+        jsonRecordCount = 0;
+        segmentLength = 0;
+        pending.reset();
+    }
+
+    private long appendRecord(byte type, String noticeId, byte[] payload) throws IOException {
+        long offset = segmentLength + pending.size();
+        writeRecord(pendingOut, type, noticeId, payload);
+        recordCount++;
+        return offset;
+    }
+
+    private static int writeRecord(DataOutputStream out, byte type, String noticeId, byte[] payload) throws IOException {
+        byte[] id = noticeId.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 1 + 2 + id.length + payload.length;
+        out.writeInt(bodyLength);
+        out.writeByte(type);
+        out.writeShort(id.length);
+        out.write(id);
+        out.write(payload);
+        return 4 + bodyLength;
+    }
+
+    private Notice readRecordAt(RandomAccessFile file, long offset, NoticeFilter filter) throws IOException {
+        file.seek(offset);
+        int bodyLength = file.readInt();
+        byte[] body = new byte[bodyLength];
+        file.readFully(body);
+        int idLength = ((body[1] & 0xff) << 8) | (body[2] & 0xff);
+        int payloadStart = 3 + idLength;
+        if (isJsonPayload(body[payloadStart])) {
+            return NoticeJson.fromBytes(body, payloadStart, bodyLength - payloadStart, filter);
+        }
+        return BinaryCodec.decodeNotice(body, payloadStart, bodyLength - payloadStart, filter);
+    }
+
+    private static boolean isJsonPayload(byte firstByte) {
+        return firstByte == '{';
+    }
+
+    /**
+     * Rebuild the offset table by scanning the segment. A torn record at the
+     * tail (e.g. the process died mid-append) is truncated away.
+     */
+    private void replay() throws IOException {
+        offsets.clear();
+        liveLengths.clear();
+        liveBytes = 0;
+        deletedIds.clear();
+        recordCount = 0;
+        jsonRecordCount = 0;
+        segmentLength = 0;
+        if (!segmentFile.exists()) {
+            return;
+        }
+        long position = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(segmentFile)))) {
+            while (true) {
+                int bodyLength;
+                byte type;
+                byte[] id;
+                try {
+                    bodyLength = in.readInt();
+                    type = in.readByte();
+                    id = new byte[in.readUnsignedShort()];
+                    in.readFully(id);
+                    int payloadLength = bodyLength - 3 - id.length;
+                    if (payloadLength < 0) {
+                        break;
+                    }
+                    if (type == RECORD_BATCH) {
+                        byte[] records = new byte[payloadLength];
+                        in.readFully(records);
+                        replayBatch(records, position + RECORD_HEADER_SIZE + id.length);
+                        position += 4 + bodyLength;
+                        continue;
+                    }
+                    if (payloadLength > 0) {
+                        if (isJsonPayload(in.readByte())) {
+                            jsonRecordCount++;
+                        }
+                        if (in.skipBytes(payloadLength - 1) != payloadLength - 1) {
+                            break;
+                        }
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                replayRecord(type, new String(id, StandardCharsets.UTF_8), position, 4 + bodyLength);
+                position += 4 + bodyLength;
+            }
+        }
+        segmentLength = position;
+        if (segmentFile.length() > position) {
+            try (RandomAccessFile file = new RandomAccessFile(segmentFile, "rw")) {
+                file.setLength(position);
+            }
+        }
+    }
+
+    private void replayRecord(byte type, String noticeId, long offset, int length) {
+        if (type == RECORD_PUT) {
+            putLive(noticeId, offset, length);
+        } else if (type == RECORD_DELETE) {
+            markDeleted(noticeId);
+        }
+        recordCount++;
+    }
+
+    private void putLive(String noticeId, long offset, int length) {
+        offsets.put(noticeId, offset);
+        Integer previous = liveLengths.put(noticeId, length);
+        liveBytes += length - (previous != null ? previous : 0);
+        deletedIds.remove(noticeId);
+    }
+
+    private void markDeleted(String noticeId) {
+        offsets.remove(noticeId);
+        Integer previous = liveLengths.remove(noticeId);
+        liveBytes -= previous != null ? previous : 0;
+        deletedIds.add(noticeId);
+    }
+
+    /**
+     * Replay the inner records of a batch whose payload starts at the given file offset
+     */
+    private void replayBatch(byte[] records, long payloadOffset) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(records));
+        int position = 0;
+        while (position < records.length) {
+            int bodyLength = in.readInt();
+            byte type = in.readByte();
+            byte[] id = new byte[in.readUnsignedShort()];
+            in.readFully(id);
+            int payloadLength = bodyLength - 3 - id.length;
+            if (payloadLength > 0 && isJsonPayload(records[position + RECORD_HEADER_SIZE + id.length])) {
+                jsonRecordCount++;
+            }
+            in.skipBytes(payloadLength);
+            replayRecord(type, new String(id, StandardCharsets.UTF_8), payloadOffset + position, 4 + bodyLength);
+            position += 4 + bodyLength;
+        }
+    }
+
+    /**
+     * Records collected for a single atomic append
+     */
+    static final class Batch {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final List<Byte> types = new ArrayList<>();
+        private final List<String> ids = new ArrayList<>();
+        private final List<Integer> offsets = new ArrayList<>();
+        private final List<Integer> lengths = new ArrayList<>();
+
+        void put(Notice notice) throws IOException {
+            add(RECORD_PUT, notice.getNoticeId(), BinaryCodec.encodeNotice(notice));
+        }
+
+        void delete(String noticeId) throws IOException {
+            add(RECORD_DELETE, noticeId, new byte[0]);
+        }
+
+        private void add(byte type, String noticeId, byte[] payload) throws IOException {
+            types.add(type);
+            ids.add(noticeId);
+            offsets.add(out.size());
+            lengths.add(writeRecord(out, type, noticeId, payload));
+        }
+    }
+}
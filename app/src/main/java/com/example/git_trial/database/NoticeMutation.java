@@ -0,0 +1,66 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Notice;
+
+/**
+ * One write in a NoticeRepository.applyBatch call
+ */
+public final class NoticeMutation {
+
+    public enum Type {
+        ADD,
+        UPDATE,
+        ARCHIVE,
+        DELETE
+    }
+
+    private final Type type;
+    private final String noticeId;
+    private final Notice notice;
+    private final boolean archive;
+
+    private NoticeMutation(Type type, String noticeId, Notice notice, boolean archive) {
+        this.type = type;
+        this.noticeId = noticeId;
+        this.notice = notice;
+        this.archive = archive;
+    }
+
+    public static NoticeMutation add(Notice notice) {
+        return new NoticeMutation(Type.ADD, notice.getNoticeId(), notice, false);
+    }
+
+    public static NoticeMutation update(Notice notice) {
+        return new NoticeMutation(Type.UPDATE, notice.getNoticeId(), notice, false);
+    }
+
+    public static NoticeMutation archive(String noticeId, boolean archive) {
+        return new NoticeMutation(Type.ARCHIVE, noticeId, null, archive);
+    }
+
+    public static NoticeMutation delete(String noticeId) {
+        return new NoticeMutation(Type.DELETE, noticeId, null, false);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getNoticeId() {
+        return noticeId;
+    }
+
+    /**
+     * The notice to write, for ADD and UPDATE
+     */
+    public Notice getNotice() {
+        return notice;
+    }
+
+    /**
+     * The new archive state, for ARCHIVE
+     */
+    public boolean isArchive() {
+        return archive;
+    }
+}
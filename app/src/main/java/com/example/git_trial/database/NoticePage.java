@@ -0,0 +1,33 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Notice;
+
+import java.util.List;
+
+/**
+ * One page of a notice feed plus the keyset cursor for the next page
+ */
+public class NoticePage {
+    private final List<Notice> notices;
+    private final String nextCursor;
+
+    public NoticePage(List<Notice> notices, String nextCursor) {
+        this.notices = notices;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Notice> getNotices() {
+        return notices;
+    }
+
+    /**
+     * Cursor to pass back for the following page, or null when this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.NoticeCategory;
+import com.example.git_trial.model.User;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A combination of notice filters, a sort order and a limit, run by
+ * NoticeRepository.query. Every filter left unset matches everything, except
+ * that only live notices match unless archived(true) or includeArchived(true)
+ * is set. Build one with
+ * NoticeQuery.builder(); instances are immutable.
+ */
+public final class NoticeQuery {
+
+    public enum Sort {
+        NEWEST_FIRST,
+        OLDEST_FIRST,
+        // Highest priority first, newest first within a priority
+        PRIORITY
+    }
+
+    private final Set<NoticeCategory> categories;
+    private final Set<String> departments;
+    private final String createdBy;
+    private final int minPriority;
+    private final int maxPriority;
+    private final long createdFrom;
+    private final long createdUntil;
+    private final boolean archived;
+    private final boolean includeArchived;
+    private final String text;
+    private final User visibleTo;
+    private final Sort sort;
+    private final int limit;
+    // Keyset position: only results after this one, in the sort order, match; null for the first page
+    private final NoticeIndex.Key after;
+    private final int afterPriority;
+
+    private NoticeQuery(NoticeQuery query, boolean archived, boolean includeArchived, int limit,
+                        NoticeIndex.Key after, int afterPriority) {
+        this.categories = query.categories;
+        this.departments = query.departments;
+        this.createdBy = query.createdBy;
+        this.minPriority = query.minPriority;
+        this.maxPriority = query.maxPriority;
+        this.createdFrom = query.createdFrom;
+        this.createdUntil = query.createdUntil;
+        this.archived = archived;
+        this.includeArchived = includeArchived;
+        this.text = query.text;
+        this.visibleTo = query.visibleTo;
+        this.sort = query.sort;
+        this.limit = limit;
+        this.after = after;
+        this.afterPriority = afterPriority;
+    }
+
+    private NoticeQuery(Builder builder) {
+        this.categories = Collections.unmodifiableSet(builder.categories);
+        this.departments = Collections.unmodifiableSet(builder.departments);
+        this.createdBy = builder.createdBy;
+        this.minPriority = builder.minPriority;
+        this.maxPriority = builder.maxPriority;
+        this.createdFrom = builder.createdFrom;
+        this.createdUntil = builder.createdUntil;
+        this.archived = builder.archived;
+        this.includeArchived = builder.includeArchived;
+        this.text = builder.text;
+        this.visibleTo = builder.visibleTo;
+        this.sort = builder.sort;
+        this.limit = builder.limit;
+        this.after = null;
+        this.afterPriority = 0;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Categories to include; empty for any
+     */
+    public Set<NoticeCategory> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Departments to include; empty for any
+     */
+    public Set<String> getDepartments() {
+        return departments;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public int getMinPriority() {
+        return minPriority;
+    }
+
+    public int getMaxPriority() {
+        return maxPriority;
+    }
+
+    /**
+     * Earliest creation time included (Long.MIN_VALUE for no bound)
+     */
+    public long getCreatedFrom() {
+        return createdFrom;
+    }
+
+    /**
+     * Creation time from which notices are excluded (Long.MAX_VALUE for no bound)
+     */
+    public long getCreatedUntil() {
+        return createdUntil;
+    }
+
+    public boolean isArchived() {
+        return archived;
+    }
+
+    /**
+     * Whether archived notices match as well as live ones
+     */
+    public boolean includesArchived() {
+        return includeArchived;
+    }
+
+    /**
+     * Words that must each match the start of a word in the notice, as in searchNotices; null for none
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Only notices this user may see; null for no visibility filter
+     */
+    public User getVisibleTo() {
+        return visibleTo;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * The same query with another limit
+     */
+    NoticeQuery withLimit(int limit) {
+        return limit == this.limit ? this : new NoticeQuery(this, archived, includeArchived, limit, after, afterPriority);
+    }
+
+    /**
+     * The same query for the results after one already read, given by its key and priority
+     */
+    NoticeQuery after(NoticeIndex.Key key, int priority) {
+        return new NoticeQuery(this, archived, includeArchived, limit, key, priority);
+    }
+
+    /**
+     * The same query over live notices only, or archived ones only
+     */
+    NoticeQuery inTier(boolean archived) {
+        return !includeArchived && archived == this.archived
+                ? this : new NoticeQuery(this, archived, false, limit, after, afterPriority);
+    }
+
+    /**
+     * The result the query starts after, or null if it starts at the first
+     */
+    NoticeIndex.Key getAfter() {
+        return after;
+    }
+
+    int getAfterPriority() {
+        return afterPriority;
+    }
+
+    /**
+     * Whether a result with the given key and priority comes after the query's start in its sort order
+     */
+    boolean isAfterStart(NoticeIndex.Key key, int priority) {
+        if (after == null) {
+            return true;
+        }
+        switch (sort) {
+            case OLDEST_FIRST:
+                return key.compareTo(after) < 0;
+            case PRIORITY:
+                return priority != afterPriority ? priority < afterPriority : key.compareTo(after) > 0;
+            default:
+                return key.compareTo(after) > 0;
+        }
+    }
+
+    /**
+     * Whether a priority passes the priority range
+     */
+    boolean acceptsPriority(int priority) {
+        return priority >= minPriority && priority <= maxPriority;
+    }
+
+    /**
+     * Whether a creation time passes the date range
+     */
+    boolean acceptsCreatedAt(long createdAt) {
+        return createdAt >= createdFrom && createdAt < createdUntil;
+    }
+
+    /**
+     * Canonical text of everything but the user, for use as a cache key
+     */
+    @Override
+    public String toString() {
+        return "categories=" + new TreeSet<>(categories) + " departments=" + new TreeSet<>(departments)
+                + " createdBy=" + createdBy + " priority=" + minPriority + ".." + maxPriority
+                + " created=" + createdFrom + ".." + createdUntil + " archived=" + archived
+                + " includeArchived=" + includeArchived
+                + " text=" + text + " sort=" + sort + " limit=" + limit
+                + " after=" + (after != null ? afterPriority + "/" + after.toCursor() : null);
+    }
+
+    public static final class Builder {
+        private final Set<NoticeCategory> categories = EnumSet.noneOf(NoticeCategory.class);
+        private final Set<String> departments = new TreeSet<>();
+        private String createdBy;
+        private int minPriority = Integer.MIN_VALUE;
+        private int maxPriority = Integer.MAX_VALUE;
+        private long createdFrom = Long.MIN_VALUE;
+        private long createdUntil = Long.MAX_VALUE;
+        private boolean archived;
+        private boolean includeArchived;
+        private String text;
+        private User visibleTo;
+        private Sort sort = Sort.NEWEST_FIRST;
+        private int limit = Integer.MAX_VALUE;
+
+        private Builder() {
+        }
+
+        public Builder categories(NoticeCategory... categories) {
+            this.categories.addAll(Arrays.asList(categories));
+            return this;
+        }
+
+        public Builder departments(String... departments) {
+            this.departments.addAll(Arrays.asList(departments));
+            return this;
+        }
+
+        public Builder createdBy(String userId) {
+            this.createdBy = userId;
+            return this;
+        }
+
+        /**
+         * Keep notices whose priority is between min and max, inclusive
+         */
+        public Builder priorityBetween(int min, int max) {
+            this.minPriority = min;
+            this.maxPriority = max;
+            return this;
+        }
+
+        /**
+         * Keep notices created at or after from and before until
+         */
+        public Builder createdBetween(long from, long until) {
+            this.createdFrom = from;
+            this.createdUntil = until;
+            return this;
+        }
+
+        public Builder createdSince(long from) {
+            this.createdFrom = from;
+            return this;
+        }
+
+        /**
+         * Query archived notices instead of live ones
+         */
+        public Builder archived(boolean archived) {
+            this.archived = archived;
+            return this;
+        }
+
+        /**
+         * Query archived notices as well as live ones
+         */
+        public Builder includeArchived(boolean includeArchived) {
+            this.includeArchived = includeArchived;
+            return this;
+        }
+
+        public Builder text(String text) {
+            this.text = text;
+            return this;
+        }
+
+        public Builder visibleTo(User user) {
+            this.visibleTo = user;
+            return this;
+        }
+
+        public Builder sortBy(Sort sort) {
+            this.sort = sort;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public NoticeQuery build() {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("limit must be positive: " + limit);
+            }
+            if (minPriority > maxPriority || createdFrom > createdUntil) {
+                throw new IllegalArgumentException("Empty priority or date range");
+            }
+            if (archived && includeArchived) {
+                throw new IllegalArgumentException("archived and includeArchived are exclusive");
+            }
+            if (sort == null) {
+                throw new IllegalArgumentException("sort must not be null");
+            }
+            return new NoticeQuery(this);
+        }
+    }
+}
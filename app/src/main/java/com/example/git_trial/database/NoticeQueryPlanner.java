@@ -0,0 +1,275 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Audience;
+import com.example.git_trial.model.NoticeCategory;
+import com.example.git_trial.model.StringDictionary;
+import com.example.git_trial.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Runs a NoticeQuery against a NoticeIndex. Every filter that has a posting
+ * list is an access path; the planner reads only the one with the fewest
+ * keys, narrowed to the date range, and checks the remaining filters against
+ * the indexed fields of each key, so no notice is loaded to be rejected.
+ * Posting lists are already in date order, so date-sorted queries stop as
+ * soon as they have enough keys; priority order sorts what the path yields.
+ */
+final class NoticeQueryPlanner {
+    private static final Set<NoticeCategory> DEPARTMENT_SCOPED =
+            EnumSet.of(NoticeCategory.DEPARTMENT, NoticeCategory.SUBJECT_SPECIFIC);
+
+    private NoticeQueryPlanner() {
+    }
+
+    /**
+     * An access path: newest-first posting lists whose union holds every match
+     */
+    static final class Plan {
+        final String access;
+        final List<NavigableSet<NoticeIndex.Key>> postings;
+        final int estimatedKeys;
+
+        Plan(String access, List<NavigableSet<NoticeIndex.Key>> postings) {
+            this.access = access;
+            this.postings = postings;
+            int keys = 0;
+            for (NavigableSet<NoticeIndex.Key> posting : postings) {
+                keys += posting.size();
+            }
+            this.estimatedKeys = keys;
+        }
+
+        @Override
+        public String toString() {
+            return access + " (" + estimatedKeys + " keys)";
+        }
+    }
+
+    /**
+     * Pick the access path with the fewest keys. The index holds either live or
+     * archived notices, matching the query; textMatches are the IDs matching the
+     * query text, or null if the text is checked by a residual filter instead.
+     */
+    static Plan plan(NoticeQuery query, NoticeIndex index, Set<String> textMatches) {
+        List<Plan> plans = new ArrayList<>();
+        if (textMatches != null) {
+            NavigableSet<NoticeIndex.Key> keys = new TreeSet<>();
+            for (String noticeId : textMatches) {
+                NoticeIndex.IndexedKeys indexed = index.indexed(noticeId);
+                if (indexed != null) {
+                    keys.add(indexed.key);
+                }
+            }
+            plans.add(new Plan("text", Collections.singletonList(keys)));
+        }
+        // Strings are looked up rather than encoded, so a query never adds to the dictionary;
+        // a creator or department that has no code yet has no notices
+        if (query.getCreatedBy() != null) {
+            int creator = StringDictionary.lookup(query.getCreatedBy());
+            plans.add(new Plan("creator", Collections.singletonList(
+                    creator != StringDictionary.NONE ? index.createdBy(creator) : new TreeSet<>())));
+        }
+        int[] departments = knownDepartments(query);
+        if (!query.getDepartments().isEmpty() && departments.length == 0) {
+            plans.add(new Plan("department", Collections.emptyList()));
+        }
+        if (query.isArchived()) {
+            plans.add(new Plan("archived", Collections.singletonList(index.archived())));
+        } else {
+            if (!query.getCategories().isEmpty()) {
+                List<NavigableSet<NoticeIndex.Key>> postings = new ArrayList<>();
+                for (NoticeCategory category : query.getCategories()) {
+                    postings.add(index.liveInCategory(category));
+                }
+                plans.add(new Plan("category", postings));
+            }
+            // Department audience postings only hold department-scoped categories
+            if (departments.length > 0 && !query.getCategories().isEmpty()
+                    && DEPARTMENT_SCOPED.containsAll(query.getCategories())) {
+                List<NavigableSet<NoticeIndex.Key>> postings = new ArrayList<>();
+                for (int department : departments) {
+                    long bit = Audience.assignedDepartment(department);
+                    if (bit != 0) {
+                        postings.add(index.liveForAudienceBit(Long.numberOfTrailingZeros(bit)));
+                    }
+                }
+                plans.add(new Plan("department", postings));
+            }
+            if (query.getVisibleTo() != null) {
+                List<NavigableSet<NoticeIndex.Key>> postings = new ArrayList<>();
+                for (long bits = query.getVisibleTo().getAudience(); bits != 0; bits &= bits - 1) {
+                    postings.add(index.liveForAudienceBit(Long.numberOfTrailingZeros(bits)));
+                }
+                plans.add(new Plan("audience", postings));
+            }
+            List<NavigableSet<NoticeIndex.Key>> all = new ArrayList<>();
+            for (NoticeCategory category : NoticeCategory.values()) {
+                all.add(index.liveInCategory(category));
+            }
+            plans.add(new Plan("all", all));
+        }
+
+        Plan best = null;
+        for (Plan plan : plans) {
+            if (best == null || plan.estimatedKeys < best.estimatedKeys) {
+                best = plan;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Keys of the notices matching the query, in its sort order and up to its limit.
+     * The residual filter, if not null, is checked last for keys passing everything else.
+     */
+    static List<NoticeIndex.Key> run(NoticeQuery query, NoticeIndex index, Set<String> textMatches,
+                                     Predicate<String> residual) {
+        if (query.isArchived() && query.getVisibleTo() != null) {
+            // Archived notices are not visible to anyone
+            return new ArrayList<>();
+        }
+        Plan plan = plan(query, index, textMatches);
+        Predicate<NoticeIndex.Key> filter = filter(query, index, textMatches, residual);
+        boolean oldestFirst = query.getSort() == NoticeQuery.Sort.OLDEST_FIRST;
+        List<Iterator<NoticeIndex.Key>> sources = new ArrayList<>();
+        for (NavigableSet<NoticeIndex.Key> posting : plan.postings) {
+            NavigableSet<NoticeIndex.Key> range = afterStart(query,
+                    NoticeIndex.createdBetween(posting, query.getCreatedFrom(), query.getCreatedUntil()));
+            sources.add(oldestFirst ? range.descendingIterator() : range.iterator());
+        }
+        Comparator<NoticeIndex.Key> order = oldestFirst
+                ? Comparator.<NoticeIndex.Key>naturalOrder().reversed() : Comparator.<NoticeIndex.Key>naturalOrder();
+        if (query.getSort() != NoticeQuery.Sort.PRIORITY) {
+            return NoticeIndex.merge(sources, order, filter, query.getLimit());
+        }
+        // No posting list is in priority order, so a page after a cursor still reads every match;
+        // only the ones past the cursor are sorted and returned
+        List<NoticeIndex.Key> keys = NoticeIndex.merge(sources, order,
+                filter.and(key -> query.isAfterStart(key, index.indexed(key.noticeId).priority)), Integer.MAX_VALUE);
+        // Stable, so notices of equal priority stay newest first
+        Collections.sort(keys, (a, b) -> Integer.compare(
+                index.indexed(b.noticeId).priority, index.indexed(a.noticeId).priority));
+        return keys.size() > query.getLimit() ? new ArrayList<>(keys.subList(0, query.getLimit())) : keys;
+    }
+
+    /**
+     * Merge a query's live and archived results, each in its sort order, into one
+     * list in that order and up to its limit
+     */
+    static List<NoticeIndex.Key> mergeTiers(NoticeQuery query, List<NoticeIndex.Key> live, NoticeIndex liveIndex,
+                                            List<NoticeIndex.Key> archived, NoticeIndex archiveIndex) {
+        Comparator<NoticeIndex.Key> order;
+        switch (query.getSort()) {
+            case OLDEST_FIRST:
+                order = Comparator.<NoticeIndex.Key>naturalOrder().reversed();
+                break;
+            case PRIORITY:
+                order = Comparator.<NoticeIndex.Key>comparingInt(key -> {
+                    NoticeIndex.IndexedKeys indexed = liveIndex.indexed(key.noticeId);
+                    return -(indexed != null ? indexed : archiveIndex.indexed(key.noticeId)).priority;
+                }).thenComparing(Comparator.naturalOrder());
+                break;
+            default:
+                order = Comparator.naturalOrder();
+        }
+        return NoticeIndex.merge(Arrays.asList(live.iterator(), archived.iterator()), order, key -> true,
+                query.getLimit());
+    }
+
+    /**
+     * The part of a date-ranged posting list after the query's start, for date-sorted
+     * queries; priority-sorted ones check the start key by key instead
+     */
+    private static NavigableSet<NoticeIndex.Key> afterStart(NoticeQuery query, NavigableSet<NoticeIndex.Key> range) {
+        NoticeIndex.Key after = query.getAfter();
+        if (after == null || query.getSort() == NoticeQuery.Sort.PRIORITY) {
+            return range;
+        }
+        boolean oldestFirst = query.getSort() == NoticeQuery.Sort.OLDEST_FIRST;
+        if (query.acceptsCreatedAt(after.createdAt)) {
+            return oldestFirst ? range.headSet(after, false) : range.tailSet(after, false);
+        }
+        // A start outside the date range is either before all of it or past all of it
+        boolean beforeRange = oldestFirst
+                ? after.createdAt < query.getCreatedFrom() : after.createdAt >= query.getCreatedUntil();
+        return beforeRange ? range : new TreeSet<>();
+    }
+
+    /**
+     * Whether one notice of the index matches the query, without reading any
+     * posting list; the residual filter is as for run, and the text is only
+     * checked by it
+     */
+    static boolean matches(NoticeQuery query, NoticeIndex index, String noticeId, Predicate<String> residual) {
+        NoticeIndex.IndexedKeys indexed = index.indexed(noticeId);
+        if (indexed == null || (query.isArchived() && query.getVisibleTo() != null)) {
+            return false;
+        }
+        return filter(query, index, null, residual).test(indexed.key);
+    }
+
+    /**
+     * Every filter of the query, checked against the indexed fields of a key
+     */
+    private static Predicate<NoticeIndex.Key> filter(NoticeQuery query, NoticeIndex index, Set<String> textMatches,
+                                                     Predicate<String> residual) {
+        Set<NoticeCategory> categories = query.getCategories();
+        boolean anyDepartment = query.getDepartments().isEmpty();
+        int[] departments = knownDepartments(query);
+        int creator = StringDictionary.lookup(query.getCreatedBy());
+        User user = query.getVisibleTo();
+        long memberAudience = user != null ? user.getAudience() : 0;
+        int memberDepartment = user != null ? user.getDepartmentCode() : StringDictionary.NONE;
+        return key -> {
+            NoticeIndex.IndexedKeys indexed = index.indexed(key.noticeId);
+            if (indexed == null || indexed.archived != query.isArchived()
+                    || !query.acceptsCreatedAt(key.createdAt)
+                    || !query.acceptsPriority(indexed.priority)
+                    || (!categories.isEmpty() && !categories.contains(indexed.category))
+                    || (query.getCreatedBy() != null
+                            && (creator == StringDictionary.NONE || indexed.createdBy != creator))
+                    || (!anyDepartment && !contains(departments, indexed.department))
+                    || (user != null && !Audience.reaches(indexed.audience, indexed.department,
+                            memberAudience, memberDepartment))
+                    || (textMatches != null && !textMatches.contains(key.noticeId))) {
+                return false;
+            }
+            return residual == null || residual.test(key.noticeId);
+        };
+    }
+
+    /**
+     * Dictionary codes of the query's departments, leaving out those with no code yet
+     */
+    private static int[] knownDepartments(NoticeQuery query) {
+        int[] departments = new int[query.getDepartments().size()];
+        int count = 0;
+        for (String department : query.getDepartments()) {
+            int code = StringDictionary.lookup(department);
+            if (code != StringDictionary.NONE) {
+                departments[count++] = code;
+            }
+        }
+        return Arrays.copyOf(departments, count);
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int candidate : values) {
+            if (candidate == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.git_trial.database;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+import android.util.Log;
+
+/**
+ * Picks the notice storage engine at startup. The engine is set per
+ * deployment with the NOTICE_ENGINE meta-data entry in the manifest
+ * ("log" for NoticeDatabase, "sqlite" for SqliteNoticeRepository); the
+ * engines keep separate files, so switching starts from a fresh store.
+ */
+public final class NoticeRepositories {
+    private static final String TAG = "NoticeRepositories";
+    private static final String ENGINE_META_DATA = "com.example.git_trial.NOTICE_ENGINE";
+
+    public enum Engine {
+        LOG,
+        SQLITE
+    }
+
+    // The configured repository; the manifest cannot change while the process runs,
+    // so the engine is read from it once rather than with a binder call per lookup
+    private static volatile NoticeRepository configured;
+
+    private NoticeRepositories() {
+    }
+
+    /**
+     * Get the shared repository for the configured engine
+     */
+    public static NoticeRepository getInstance(Context context) {
+        NoticeRepository repository = configured;
+        if (repository == null) {
+            repository = getInstance(context, configuredEngine(context));
+            configured = repository;
+        }
+        return repository;
+    }
+
+    /**
+     * Get the shared repository for a specific engine, e.g. to run the same workload against both
+     */
+    public static NoticeRepository getInstance(Context context, Engine engine) {
+        if (engine == Engine.SQLITE) {
+            return SqliteNoticeRepository.getInstance(context);
+        }
+        return NoticeDatabase.getInstance(context);
+    }
+
+    private static Engine configuredEngine(Context context) {
+        try {
+            ApplicationInfo info = context.getPackageManager()
+                    .getApplicationInfo(context.getPackageName(), PackageManager.GET_META_DATA);
+            Bundle metaData = info.metaData;
+            String engine = metaData != null ? metaData.getString(ENGINE_META_DATA) : null;
+            if ("sqlite".equalsIgnoreCase(engine)) {
+                return Engine.SQLITE;
+            }
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.e(TAG, "Could not read notice engine setting", e);
+        }
+        return Engine.LOG;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.NoticeCategory;
+import com.example.git_trial.model.User;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Storage engine for notices. Activities talk to this interface and get the
+ * engine chosen for the deployment from NoticeRepositories. Every list is
+ * ordered newest first unless noted; paged queries take the cursor returned
+ * by the previous page (null for the first page). Notices returned by list
+ * queries may carry only a preview of their description.
+ */
+public interface NoticeRepository {
+
+    /**
+     * Persist any buffered writes now; called at lifecycle points such as onStop
+     */
+    void flush();
+
+    /**
+     * Open and load the store now, seeding an empty one with the sample
+     * notices, so the first query does not wait for it. Every other method
+     * does this on first use; meant for a background thread during startup.
+     */
+    void warmUp();
+
+    /**
+     * Get all notices, in insertion order
+     */
+    List<Notice> getAllNotices();
+
+    /**
+     * Read the notices a filter accepts straight from storage; meant for
+     * one-off reads such as exports rather than dashboard queries
+     */
+    List<Notice> streamNotices(NoticeFilter filter);
+
+    /**
+     * Replace all notices (bulk rewrite, not used by single-notice writes)
+     */
+    void saveAllNotices(List<Notice> allNotices);
+
+    boolean addNotice(Notice notice);
+
+    boolean updateNotice(Notice updatedNotice);
+
+    boolean deleteNotice(String noticeId);
+
+    /**
+     * Bring back a notice deleted moments ago; false once the undo window has passed
+     */
+    boolean restoreNotice(String noticeId);
+
+    /**
+     * Apply many adds, updates, archives and deletes with a single write.
+     * All-or-nothing: if an update or archive targets a missing notice or the write
+     * fails, nothing is changed and false is returned.
+     */
+    boolean applyBatch(List<NoticeMutation> mutations);
+
+    /**
+     * Apply the category retention policy (archive or purge) to at most maxNotices
+     * live notices that expired at or before now, soonest expiry first; returns how many
+     */
+    int sweepExpired(long now, int maxNotices);
+
+    /**
+     * Live notices in a category
+     */
+    List<Notice> getNoticesByCategory(NoticeCategory category);
+
+    NoticePage getNoticesByCategory(NoticeCategory category, String afterCursor, int limit);
+
+    /**
+     * Live notices visible to a user based on their department
+     */
+    List<Notice> getNoticesForUser(User user);
+
+    NoticePage getNoticesForUser(User user, String afterCursor, int limit);
+
+    /**
+     * Notices created by a specific user, archived or not
+     */
+    List<Notice> getNoticesByCreator(String userId);
+
+    NoticePage getNoticesByCreator(String userId, String afterCursor, int limit);
+
+    /**
+     * Search notices visible to the user by title, description, subject or author.
+     * Every word in the query must match the start of a word in the notice.
+     */
+    List<Notice> searchNotices(String query, User user);
+
+    /**
+     * Run a combination of filters, ordered and limited as the query says
+     */
+    List<Notice> query(NoticeQuery query);
+
+    /**
+     * Keep the results of a query up to date while they are shown, delivering
+     * each change to the listener through the executor (see LiveQuery). The
+     * executor is called with the repository locked, so it must only hand the
+     * event off, e.g. post it to the main thread. Returns at once, even while
+     * the store is still loading; the first page is loaded in the background.
+     */
+    LiveQuery observe(NoticeQuery query, int pageSize, Executor executor, LiveQuery.Listener listener);
+
+    boolean archiveNotice(String noticeId, boolean archive);
+
+    List<Notice> getArchivedNotices();
+
+    NoticePage getArchivedNotices(String afterCursor, int limit);
+
+    /**
+     * Get a notice as shown in lists: the description may only be a preview (see Notice.isBodyLoaded)
+     */
+    Notice getNoticeById(String noticeId);
+
+    /**
+     * Get the full description of a notice
+     */
+    String getNoticeBody(String noticeId);
+
+    /**
+     * Get a notice with its full description loaded, e.g. to edit it
+     */
+    Notice getFullNotice(String noticeId);
+}
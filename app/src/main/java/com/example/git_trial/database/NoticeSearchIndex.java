@@ -0,0 +1,162 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Notice;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Tokenized inverted index over notice title, description, subject and author name.
+ * Terms are kept sorted so every query term is matched as a prefix with a
+ * range lookup; multiple query terms are AND-ed together.
+ */
+class NoticeSearchIndex {
+    private final TreeMap<String, Set<String>> postings = new TreeMap<>();
+    private final Map<String, Set<String>> termsByNotice = new HashMap<>();
+
+    /**
+     * Index a new notice or re-index an updated one
+     */
+    void put(Notice notice) {
+        put(notice.getNoticeId(), notice.getTitle(), notice.getDescription(),
+            notice.getSubject(), notice.getCreatedByName());
+    }
+
+    /**
+     * Index a notice from its searchable text fields
+     */
+    void put(String noticeId, String title, String description, String subject, String createdByName) {
+        remove(noticeId);
+        Set<String> terms = new HashSet<>();
+        tokenize(title, terms);
+        tokenize(description, terms);
+        tokenize(subject, terms);
+        tokenize(createdByName, terms);
+        for (String term : terms) {
+            Set<String> ids = postings.get(term);
+            if (ids == null) {
+                ids = new HashSet<>();
+                postings.put(term, ids);
+            }
+            ids.add(noticeId);
+        }
+        termsByNotice.put(noticeId, terms);
+    }
+
+    void remove(String noticeId) {
+        Set<String> terms = termsByNotice.remove(noticeId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Set<String> ids = postings.get(term);
+            if (ids != null) {
+                ids.remove(noticeId);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+        termsByNotice.clear();
+    }
+
+    /**
+     * IDs of notices containing every query term as a word prefix
+     */
+    Set<String> search(String query) {
+        Set<String> queryTerms = new HashSet<>();
+        tokenize(query, queryTerms);
+        if (queryTerms.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        // Intersect starting from the most selective term
+        List<Set<String>> matches = new ArrayList<>();
+        for (String term : queryTerms) {
+            Set<String> ids = prefixMatches(term);
+            if (ids.isEmpty()) {
+                return Collections.emptySet();
+            }
+            matches.add(ids);
+        }
+        Collections.sort(matches, (a, b) -> Integer.compare(a.size(), b.size()));
+
+        Set<String> result = new HashSet<>(matches.get(0));
+        for (int i = 1; i < matches.size() && !result.isEmpty(); i++) {
+            result.retainAll(matches.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Whether a notice that is not in any index matches a query, by the same rules as search
+     */
+    static boolean matches(String query, Notice notice) {
+        Set<String> queryTerms = new HashSet<>();
+        tokenize(query, queryTerms);
+        if (queryTerms.isEmpty()) {
+            return false;
+        }
+        Set<String> terms = new HashSet<>();
+        tokenize(notice.getTitle(), terms);
+        tokenize(notice.getDescription(), terms);
+        tokenize(notice.getSubject(), terms);
+        tokenize(notice.getCreatedByName(), terms);
+        for (String queryTerm : queryTerms) {
+            boolean found = false;
+            for (String term : terms) {
+                if (term.startsWith(queryTerm)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Set<String> prefixMatches(String prefix) {
+        Collection<Set<String>> ranges = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+        if (ranges.size() == 1) {
+            return ranges.iterator().next();
+        }
+        Set<String> ids = new HashSet<>();
+        for (Set<String> range : ranges) {
+            ids.addAll(range);
+        }
+        return ids;
+    }
+
+    /**
+     * Split text into lowercase alphanumeric terms
+     */
+    static void tokenize(String text, Set<String> terms) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+    }
+}
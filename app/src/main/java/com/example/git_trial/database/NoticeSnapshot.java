@@ -0,0 +1,383 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.NoticeCategory;
+import com.example.git_trial.model.StringDictionary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only notice snapshot accessed through a memory-mapped file.
+ * Every notice has a fixed-width row header followed by a shared string heap,
+ * so fields can be read straight from the mapping by row number and a full
+ * Notice is only built for rows that are actually displayed. Author,
+ * department and subject are dictionary-encoded: rows hold an index into the
+ * file's dictionary, which is translated to StringDictionary codes once when
+ * the file is opened.
+ *
+ * File layout:
+ *   [int magic][int version][int rowCount][int heapStart]
+ *   rowCount x ROW_SIZE row headers
+ *   string heap: dictionary [int count][strings] (index 0 means null), then
+ *   [int byteLength][UTF-8 bytes] strings and [int count][strings] attachment lists
+ * Version 1 files have no dictionary and hold heap offsets in every string
+ * field; versions 1 and 2 have 56-byte rows without an expiry time.
+ */
+class NoticeSnapshot {
+    private static final int MAGIC = 0x534e4253; // "SNBS"
+    private static final int VERSION = 3;
+    private static final int VERSION_WITHOUT_EXPIRY = 2;
+    private static final int VERSION_WITHOUT_DICTIONARY = 1;
+    private static final int HEADER_SIZE = 16;
+
+    // Row header layout
+    private static final int ROW_CREATED_AT = 0;
+    private static final int ROW_UPDATED_AT = 8;
+    private static final int ROW_ID = 16;
+    private static final int ROW_TITLE = 20;
+    private static final int ROW_DESCRIPTION = 24;
+    private static final int ROW_CREATED_BY = 28;
+    private static final int ROW_CREATED_BY_NAME = 32;
+    private static final int ROW_DEPARTMENT = 36;
+    private static final int ROW_SUBJECT = 40;
+    private static final int ROW_ATTACHMENTS = 44;
+    private static final int ROW_CATEGORY = 48;
+    private static final int ROW_PRIORITY = 49;
+    private static final int ROW_FLAGS = 50;
+    private static final int ROW_EXPIRES_AT = 56;
+    private static final int ROW_SIZE = 64;
+    private static final int ROW_SIZE_WITHOUT_EXPIRY = 56;
+
+    private static final int NO_VALUE = -1;
+    private static final int FLAG_ARCHIVED = 1;
+
+    private static final NoticeSnapshot EMPTY = new NoticeSnapshot(
+            ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN), VERSION, 0, new int[1]);
+
+    private final ByteBuffer buffer;
+    private final boolean hasExpiry;
+    private final int rowSize;
+    private final int rowCount;
+    // File dictionary index -> StringDictionary code; null for version 1 files
+    private final int[] dictionaryCodes;
+
+    private NoticeSnapshot(ByteBuffer buffer, int version, int rowCount, int[] dictionaryCodes) {
+        this.buffer = buffer;
+        this.hasExpiry = version != VERSION_WITHOUT_DICTIONARY && version != VERSION_WITHOUT_EXPIRY;
+        this.rowSize = hasExpiry ? ROW_SIZE : ROW_SIZE_WITHOUT_EXPIRY;
+        this.rowCount = rowCount;
+        this.dictionaryCodes = dictionaryCodes;
+    }
+
+    /**
+     * Map an existing snapshot file, or return an empty snapshot if there is none
+     */
+    static NoticeSnapshot open(File file) throws IOException {
+        if (!file.exists() || file.length() < HEADER_SIZE) {
+            return EMPTY;
+        }
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int version = buffer.getInt(4);
+        if (buffer.getInt(0) != MAGIC || version < VERSION_WITHOUT_DICTIONARY || version > VERSION) {
+            throw new IOException("Unrecognized notice snapshot " + file);
+        }
+        return new NoticeSnapshot(buffer, version, buffer.getInt(8),
+                version != VERSION_WITHOUT_DICTIONARY ? readDictionary(buffer, buffer.getInt(12)) : null);
+    }
+
+    private static int[] readDictionary(ByteBuffer buffer, int offset) {
+        int count = buffer.getInt(offset);
+        int[] codes = new int[count + 1];
+        int position = offset + 4;
+        for (int i = 1; i <= count; i++) {
+            int length = buffer.getInt(position);
+            byte[] bytes = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(position + 4);
+            view.get(bytes);
+            codes[i] = StringDictionary.encode(new String(bytes, StandardCharsets.UTF_8));
+            position += 4 + length;
+        }
+        return codes;
+    }
+
+    /**
+     * Write a snapshot of the given notices, replacing the file atomically
+     */
+    static void write(File file, List<Notice> notices) throws IOException {
+        int heapStart = HEADER_SIZE + notices.size() * ROW_SIZE;
+        ByteBuffer rows = ByteBuffer.allocate(notices.size() * ROW_SIZE);
+        ByteArrayOutputStream heapBytes = new ByteArrayOutputStream();
+        DataOutputStream heap = new DataOutputStream(heapBytes);
+
+        // StringDictionary code -> index in this file's dictionary
+        Map<Integer, Integer> dictionary = new LinkedHashMap<>();
+        for (Notice notice : notices) {
+            addToDictionary(dictionary, notice.getCreatedByCode());
+            addToDictionary(dictionary, notice.getCreatedByNameCode());
+            addToDictionary(dictionary, notice.getDepartmentCode());
+            addToDictionary(dictionary, notice.getSubjectCode());
+        }
+        heap.writeInt(dictionary.size());
+        for (int code : dictionary.keySet()) {
+            byte[] bytes = StringDictionary.decode(code).getBytes(StandardCharsets.UTF_8);
+            heap.writeInt(bytes.length);
+            heap.write(bytes);
+        }
+
+        for (int row = 0; row < notices.size(); row++) {
+            Notice notice = notices.get(row);
+            int base = row * ROW_SIZE;
+            rows.putLong(base + ROW_CREATED_AT, notice.getCreatedAt());
+            rows.putLong(base + ROW_UPDATED_AT, notice.getUpdatedAt());
+            rows.putInt(base + ROW_ID, putString(heap, heapStart, notice.getNoticeId()));
+            rows.putInt(base + ROW_TITLE, putString(heap, heapStart, notice.getTitle()));
+            rows.putInt(base + ROW_DESCRIPTION, putString(heap, heapStart, notice.getDescription()));
+            rows.putInt(base + ROW_CREATED_BY, dictionaryIndex(dictionary, notice.getCreatedByCode()));
+            rows.putInt(base + ROW_CREATED_BY_NAME, dictionaryIndex(dictionary, notice.getCreatedByNameCode()));
+            rows.putInt(base + ROW_DEPARTMENT, dictionaryIndex(dictionary, notice.getDepartmentCode()));
+            rows.putInt(base + ROW_SUBJECT, dictionaryIndex(dictionary, notice.getSubjectCode()));
+            rows.putInt(base + ROW_ATTACHMENTS, putAttachments(heap, heapStart, notice.getAttachments()));
+            rows.put(base + ROW_CATEGORY, (byte) (notice.getCategory() == null ? 0 : notice.getCategory().ordinal() + 1));
+            rows.put(base + ROW_PRIORITY, (byte) notice.getPriority());
+            rows.put(base + ROW_FLAGS, (byte) (notice.isArchived() ? FLAG_ARCHIVED : 0));
+            rows.putLong(base + ROW_EXPIRES_AT, notice.getExpiresAt());
+        }
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile);
+             DataOutputStream out = new DataOutputStream(fileOut)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(notices.size());
+            out.writeInt(heapStart);
+            out.write(rows.array());
+            heapBytes.writeTo(out);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    private static void addToDictionary(Map<Integer, Integer> dictionary, int code) {
+        if (code != StringDictionary.NONE && !dictionary.containsKey(code)) {
+            dictionary.put(code, dictionary.size() + 1);
+        }
+    }
+
+    private static int dictionaryIndex(Map<Integer, Integer> dictionary, int code) {
+        return code == StringDictionary.NONE ? 0 : dictionary.get(code);
+    }
+
+    private static int putString(DataOutputStream heap, int heapStart, String value) throws IOException {
+        if (value == null) {
+            return NO_VALUE;
+        }
+        int offset = heapStart + heap.size();
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        heap.writeInt(bytes.length);
+        heap.write(bytes);
+        return offset;
+    }
+
+    private static int putAttachments(DataOutputStream heap, int heapStart, List<String> attachments) throws IOException {
+        if (attachments == null || attachments.isEmpty()) {
+            return NO_VALUE;
+        }
+        int offset = heapStart + heap.size();
+        heap.writeInt(attachments.size());
+        for (String attachment : attachments) {
+            byte[] bytes = (attachment != null ? attachment : "").getBytes(StandardCharsets.UTF_8);
+            heap.writeInt(bytes.length);
+            heap.write(bytes);
+        }
+        return offset;
+    }
+
+    int size() {
+        return rowCount;
+    }
+
+    /**
+     * Size of the mapped file
+     */
+    long byteSize() {
+        return rowCount == 0 ? 0 : buffer.capacity();
+    }
+
+    long createdAt(int row) {
+        return buffer.getLong(rowBase(row) + ROW_CREATED_AT);
+    }
+
+    NoticeCategory category(int row) {
+        int code = buffer.get(rowBase(row) + ROW_CATEGORY);
+        NoticeCategory[] values = NoticeCategory.values();
+        return code <= 0 || code > values.length ? null : values[code - 1];
+    }
+
+    long expiresAt(int row) {
+        return hasExpiry ? buffer.getLong(rowBase(row) + ROW_EXPIRES_AT) : 0;
+    }
+
+    int priority(int row) {
+        return buffer.get(rowBase(row) + ROW_PRIORITY);
+    }
+
+    boolean isArchived(int row) {
+        return (buffer.get(rowBase(row) + ROW_FLAGS) & FLAG_ARCHIVED) != 0;
+    }
+
+    String noticeId(int row) {
+        return stringField(row, ROW_ID);
+    }
+
+    String title(int row) {
+        return stringField(row, ROW_TITLE);
+    }
+
+    String description(int row) {
+        return stringField(row, ROW_DESCRIPTION);
+    }
+
+    int createdByCode(int row) {
+        return codeField(row, ROW_CREATED_BY);
+    }
+
+    int departmentCode(int row) {
+        return codeField(row, ROW_DEPARTMENT);
+    }
+
+    String createdByName(int row) {
+        return StringDictionary.decode(codeField(row, ROW_CREATED_BY_NAME));
+    }
+
+    String subject(int row) {
+        return StringDictionary.decode(codeField(row, ROW_SUBJECT));
+    }
+
+    /**
+     * Build a Notice holding only the header fields of a row (no description or attachments)
+     */
+    Notice header(int row) {
+        int base = rowBase(row);
+        Notice notice = new Notice();
+        notice.setNoticeId(noticeId(row));
+        notice.setTitle(title(row));
+        notice.setCategory(category(row));
+        notice.setCreatedByCode(codeField(row, ROW_CREATED_BY));
+        notice.setCreatedByNameCode(codeField(row, ROW_CREATED_BY_NAME));
+        notice.setCreatedAt(buffer.getLong(base + ROW_CREATED_AT));
+        notice.setUpdatedAt(buffer.getLong(base + ROW_UPDATED_AT));
+        notice.setArchived(isArchived(row));
+        notice.setDepartmentCode(codeField(row, ROW_DEPARTMENT));
+        notice.setSubjectCode(codeField(row, ROW_SUBJECT));
+        notice.setPriority(priority(row));
+        notice.setExpiresAt(expiresAt(row));
+        return notice;
+    }
+
+    /**
+     * Build the list copy of a row: header fields, attachments and the start of the description
+     */
+    Notice preview(int row, int previewLength) {
+        Notice notice = header(row);
+        notice.setAttachments(attachments(buffer.getInt(rowBase(row) + ROW_ATTACHMENTS)));
+        int offset = buffer.getInt(rowBase(row) + ROW_DESCRIPTION);
+        notice.setDescriptionPreview(offset == NO_VALUE ? null : stringPrefixAt(offset, previewLength));
+        return notice;
+    }
+
+    /**
+     * Build a full Notice for one row
+     */
+    Notice materialize(int row) {
+        Notice notice = header(row);
+        notice.setDescription(description(row));
+        notice.setAttachments(attachments(buffer.getInt(rowBase(row) + ROW_ATTACHMENTS)));
+        return notice;
+    }
+
+    private int rowBase(int row) {
+        return HEADER_SIZE + row * rowSize;
+    }
+
+    /**
+     * Read a dictionary-encoded field as a StringDictionary code
+     */
+    private int codeField(int row, int field) {
+        if (dictionaryCodes == null) {
+            return StringDictionary.encode(stringField(row, field));
+        }
+        return dictionaryCodes[buffer.getInt(rowBase(row) + field)];
+    }
+
+    private String stringField(int row, int field) {
+        int offset = buffer.getInt(rowBase(row) + field);
+        return offset == NO_VALUE ? null : stringAt(offset);
+    }
+
+    private String stringAt(int offset) {
+        int length = buffer.getInt(offset);
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + 4);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decode at most maxChars characters of a heap string without reading the rest of it
+     */
+    private String stringPrefixAt(int offset, int maxChars) {
+        int length = buffer.getInt(offset);
+        // A UTF-8 character takes at most 4 bytes
+        int byteCount = (int) Math.min(length, maxChars * 4L);
+        byte[] bytes = new byte[byteCount];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + 4);
+        view.get(bytes);
+        String prefix = new String(bytes, StandardCharsets.UTF_8);
+        if (byteCount < length) {
+            // Drop a character cut in half at the end of the byte range
+            while (prefix.endsWith("\uFFFD")) {
+                prefix = prefix.substring(0, prefix.length() - 1);
+            }
+        }
+        return prefix.length() > maxChars ? prefix.substring(0, maxChars) : prefix;
+    }
+
+    private List<String> attachments(int offset) {
+        List<String> attachments = new ArrayList<>();
+        if (offset == NO_VALUE) {
+            return attachments;
+        }
+        int count = buffer.getInt(offset);
+        int position = offset + 4;
+        for (int i = 0; i < count; i++) {
+            attachments.add(stringAt(position));
+            position += 4 + buffer.getInt(position);
+        }
+        return attachments;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.git_trial.database;
+
+/**
+ * Space used by persisted notices and the cost of the last compaction
+ */
+public class NoticeStorageStats {
+    private final long liveBytes;
+    private final long deadBytes;
+    private final long lastCompactionMillis;
+
+    public NoticeStorageStats(long liveBytes, long deadBytes, long lastCompactionMillis) {
+        this.liveBytes = liveBytes;
+        this.deadBytes = deadBytes;
+        this.lastCompactionMillis = lastCompactionMillis;
+    }
+
+    /**
+     * Bytes holding the current version of a live notice
+     */
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Bytes held by superseded versions, deleted notices and tombstones
+     */
+    public long getDeadBytes() {
+        return deadBytes;
+    }
+
+    public double getDeadRatio() {
+        long total = liveBytes + deadBytes;
+        return total == 0 ? 0 : (double) deadBytes / total;
+    }
+
+    /**
+     * How long the last compaction took, or -1 if none has run in this process
+     */
+    public long getLastCompactionMillis() {
+        return lastCompactionMillis;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.git_trial.database;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU of query results. Each entry is stamped with the store
+ * generation it was computed at; the store bumps its generation on every
+ * mutation, so an entry from an older generation is stale and is dropped
+ * when it is next looked up instead of being invalidated eagerly. Not thread
+ * safe; the owner synchronizes.
+ */
+final class QueryCache {
+    private final int maxEntries;
+    private final Map<Key, Entry> entries;
+    private long hits;
+    private long misses;
+
+    QueryCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<Key, Entry>(maxEntries, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > QueryCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get a result computed at the given generation, or null on a miss
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(Key key, long generation) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.generation != generation) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return (T) entry.result;
+    }
+
+    void put(Key key, long generation, Object result) {
+        entries.put(key, new Entry(generation, result));
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    QueryCacheStats stats() {
+        return new QueryCacheStats(hits, misses, entries.size(), maxEntries);
+    }
+
+    /**
+     * A query and the audience it was run for; audience and department are 0
+     * for queries that do not depend on who asks
+     */
+    static final class Key {
+        final String query;
+        final long audience;
+        final int department;
+
+        Key(String query, long audience, int department) {
+            this.query = query;
+            this.audience = audience;
+            this.department = department;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return audience == other.audience && department == other.department && query.equals(other.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * query.hashCode() + Long.hashCode(audience)) + department;
+        }
+    }
+
+    private static final class Entry {
+        final long generation;
+        final Object result;
+
+        Entry(long generation, Object result) {
+            this.generation = generation;
+            this.result = result;
+        }
+    }
+}
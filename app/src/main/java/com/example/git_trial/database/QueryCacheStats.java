@@ -0,0 +1,45 @@
+package com.example.git_trial.database;
+
+/**
+ * Hit and miss counts of the notice query cache since the process started
+ */
+public class QueryCacheStats {
+    private final long hits;
+    private final long misses;
+    private final int entries;
+    private final int maxEntries;
+
+    public QueryCacheStats(long hits, long misses, int entries, int maxEntries) {
+        this.hits = hits;
+        this.misses = misses;
+        this.entries = entries;
+        this.maxEntries = maxEntries;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Lookups that had to run the query, including those that found a stale entry
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Results currently held, stale ones included until they are looked up or evicted
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+}
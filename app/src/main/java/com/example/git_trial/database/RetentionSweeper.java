@@ -0,0 +1,55 @@
+package com.example.git_trial.database;
+
+import android.util.Log;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that applies each category's RetentionPolicy to expired
+ * notices. A pass handles at most BATCH_SIZE notices as one batch write, so
+ * a large backlog is worked off in short steps instead of holding the
+ * store's lock; passes repeat until nothing is left, then wait for the next
+ * interval.
+ */
+final class RetentionSweeper {
+    private static final String TAG = "RetentionSweeper";
+    static final int BATCH_SIZE = 50;
+    private static final long FIRST_SWEEP_DELAY_MS = 5_000;
+    private static final long SWEEP_INTERVAL_MS = 15 * 60_000;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snb-retention");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private final NoticeRepository repository;
+
+    private RetentionSweeper(NoticeRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Start sweeping a repository for the life of the process
+     */
+    static void start(NoticeRepository repository) {
+        RetentionSweeper sweeper = new RetentionSweeper(repository);
+        SCHEDULER.schedule(sweeper::sweep, FIRST_SWEEP_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void sweep() {
+        long delay = SWEEP_INTERVAL_MS;
+        try {
+            if (repository.sweepExpired(System.currentTimeMillis(), BATCH_SIZE) >= BATCH_SIZE) {
+                // More are waiting; let other work take the lock in between
+                delay = 0;
+            }
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Retention sweep failed", e);
+        }
+        SCHEDULER.schedule(this::sweep, delay, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.NoticeCategory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Demonstration notices every engine seeds into an empty store
+ */
+final class SampleNotices {
+
+    private SampleNotices() {
+    }
+
+    static List<Notice> create() {
+        List<Notice> sampleNotices = new ArrayList<>();
+        // Create sample notices
+        Notice commonNotice = new Notice(
+            "Welcome to Smart Notice Board",
+            "This is the new digital notice board system for our college. Please check regularly for updates.",
+            NoticeCategory.COMMON,
+            "admin_1",
+            "System Administrator"
+        );
+        commonNotice.setDepartment("All");
+        commonNotice.setPriority(5);
+
+        Notice deptNotice = new Notice(
+            "CS Department Meeting",
+            "All Computer Science faculty and students are invited to the department meeting on Friday at 3 PM in Room 201.",
+            NoticeCategory.DEPARTMENT,
+            "hod_cs",
+            "Head of Department"
+        );
+        deptNotice.setDepartment("Computer Science");
+        deptNotice.setPriority(4);
+
+        Notice annualNotice = new Notice(
+            "Annual College Fest 2024",
+            "The annual college fest will be held from March 15-17, 2024. Registration is now open for all events.",
+            NoticeCategory.ANNUAL,
+            "admin_1",
+            "System Administrator"
+        );
+        annualNotice.setDepartment("All");
+        annualNotice.setPriority(5);
+
+        Notice subjectNotice = new Notice(
+            "Data Structures Assignment Due",
+            "The Data Structures assignment is due next Monday. Please submit your work on time.",
+            NoticeCategory.SUBJECT_SPECIFIC,
+            "teacher1",
+            "John Doe"
+        );
+        subjectNotice.setSubject("Data Structures");
+        subjectNotice.setDepartment("Computer Science");
+        subjectNotice.setPriority(3);
+
+        sampleNotices.add(commonNotice);
+        sampleNotices.add(deptNotice);
+        sampleNotices.add(annualNotice);
+        sampleNotices.add(subjectNotice);
+
+        return sampleNotices;
+    }
+}
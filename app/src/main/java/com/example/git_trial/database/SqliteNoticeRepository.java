@@ -0,0 +1,813 @@
+package com.example.git_trial.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.NoticeCategory;
+import com.example.git_trial.model.RetentionPolicy;
+import com.example.git_trial.model.User;
+import com.example.git_trial.utils.StartupTimings;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * NoticeRepository engine backed by SQLite.
+ * Feed queries are served by composite indexes that end in the feed sort
+ * order (createdAt descending, notice ID ascending), and pages are read with
+ * keyset cursors in the same format as NoticeDatabase. Search runs
+ * against an FTS4 table over title, description, subject and author name,
+ * kept in step with the notices table inside the same transaction. Writes
+ * do not say which rows they touched, so live queries are re-run after each
+ * one and only the differences are delivered.
+ */
+public class SqliteNoticeRepository implements NoticeRepository {
+    private static final String TAG = "SqliteNoticeRepository";
+    private static final String DATABASE_NAME = "notices.db";
+    private static final int DATABASE_VERSION = 2;
+
+    private static final String TABLE_NOTICES = "notices";
+    private static final String TABLE_FTS = "notices_fts";
+
+    private static final String[] COLUMNS = {
+        "notice_id", "title", "category", "created_by", "created_by_name", "created_at",
+        "updated_at", "is_archived", "department", "subject", "priority", "expires_at",
+        // Body columns come last so filters can reject a row before they are read
+        "description", "attachments"
+    };
+    private static final String SELECT_NOTICES = "SELECT " + String.join(", ", COLUMNS) + " FROM " + TABLE_NOTICES;
+    // List queries read only the start of the description; the rest is fetched when a notice is opened
+    private static final int DESCRIPTION_PREVIEW_LENGTH = 160;
+    private static final String SELECT_PREVIEWS = SELECT_NOTICES.replace(
+            "description,", "substr(description, 1, " + DESCRIPTION_PREVIEW_LENGTH + "),");
+    private static final String ORDER_NEWEST_FIRST = " ORDER BY created_at DESC, notice_id ASC";
+    private static final String AFTER_CURSOR = " AND (created_at < ? OR (created_at = ? AND notice_id > ?))";
+    private static final String AFTER_CURSOR_OLDEST_FIRST =
+            " AND (created_at > ? OR (created_at = ? AND notice_id < ?))";
+    private static final String AFTER_CURSOR_PRIORITY = " AND (priority < ? OR (priority = ?" + AFTER_CURSOR + "))";
+    private static final String MATCHES_TEXT =
+            "_id IN (SELECT docid FROM " + TABLE_FTS + " WHERE " + TABLE_FTS + " MATCH ?)";
+    private static final String VISIBLE_TO_ALL = "is_archived = 0 AND (category IN ('COMMON', 'ANNUAL')";
+    private static final String VISIBLE_IN_DEPARTMENT =
+            " OR (department = ? AND category IN ('DEPARTMENT', 'SUBJECT_SPECIFIC'))";
+
+    private static final Type ATTACHMENT_LIST_TYPE = new TypeToken<List<String>>(){}.getType();
+
+    // Deleted notices can be restored for this long
+    private static final long UNDO_WINDOW_MS = 10_000;
+
+    private static SqliteNoticeRepository instance;
+
+    private final OpenHelper openHelper;
+    private boolean seeded;
+    private final Gson gson = new Gson();
+    // Rows deleted within the undo window, kept so they can be inserted again
+    private final Map<String, Notice> recentlyDeleted = new LinkedHashMap<>();
+    private final Map<String, Long> deletedAt = new HashMap<>();
+    // Copy-on-write so observe and close need not wait for the lock
+    private final List<LiveQuery> liveQueries = new CopyOnWriteArrayList<>();
+    private final LiveQuery.Owner liveQueryOwner = new LiveQuery.Owner() {
+        @Override
+        public void loadMore(LiveQuery liveQuery) {
+            synchronized (SqliteNoticeRepository.this) {
+                if (!liveQuery.isClosed()) {
+                    liveQuery.appendPage(query(liveQuery.nextPageQuery()));
+                }
+            }
+        }
+
+        @Override
+        public void close(LiveQuery liveQuery) {
+            liveQueries.remove(liveQuery);
+        }
+    };
+
+    private SqliteNoticeRepository(Context context) {
+        // Does not open the database; that happens on first use
+        this.openHelper = new OpenHelper(context);
+    }
+
+    /**
+     * Get the shared instance used by every activity
+     */
+    public static synchronized SqliteNoticeRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new SqliteNoticeRepository(context.getApplicationContext());
+            RetentionSweeper.start(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Open the database and seed it if it is empty, once per process; called
+     * with the lock held by everything that reads or writes notices
+     */
+    private void ensureSeeded() {
+        if (seeded) {
+            return;
+        }
+        long start = System.nanoTime();
+        seeded = true;
+        if (DatabaseUtils.queryNumEntries(openHelper.getReadableDatabase(), TABLE_NOTICES) == 0) {
+            saveAllNotices(SampleNotices.create());
+        }
+        StartupTimings.record("notices.load", start);
+    }
+
+    @Override
+    public synchronized void warmUp() {
+        ensureSeeded();
+    }
+
+    /**
+     * Every write is already its own committed transaction, so there is nothing to flush
+     */
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public synchronized List<Notice> getAllNotices() {
+        ensureSeeded();
+        return query(SELECT_NOTICES + " ORDER BY _id", null);
+    }
+
+    @Override
+    public synchronized List<Notice> streamNotices(NoticeFilter filter) {
+        ensureSeeded();
+        List<Notice> result = new ArrayList<>();
+        try (Cursor cursor = openHelper.getReadableDatabase().rawQuery(SELECT_NOTICES + " ORDER BY _id", null)) {
+            while (cursor.moveToNext()) {
+                Notice notice = readHeader(cursor);
+                if (filter.accept(notice)) {
+                    readBody(cursor, notice);
+                    result.add(notice);
+                }
+            }
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Failed to stream notices", e);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void saveAllNotices(List<Notice> allNotices) {
+        ensureSeeded();
+        SQLiteDatabase db = openHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_FTS, null, null);
+            db.delete(TABLE_NOTICES, null, null);
+            for (Notice notice : allNotices) {
+                write(db, notice);
+            }
+            db.setTransactionSuccessful();
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Failed to save notices", e);
+        } finally {
+            db.endTransaction();
+        }
+        refreshLiveQueries();
+    }
+
+    @Override
+    public synchronized boolean addNotice(Notice notice) {
+        ensureSeeded();
+        return writeInTransaction(notice, "Failed to add notice");
+    }
+
+    @Override
+    public synchronized boolean updateNotice(Notice updatedNotice) {
+        ensureSeeded();
+        if (rowId(openHelper.getReadableDatabase(), updatedNotice.getNoticeId()) < 0) {
+            return false;
+        }
+        if (!updatedNotice.isBodyLoaded()) {
+            // Never write a preview back as the description
+            updatedNotice.setDescription(getNoticeBody(updatedNotice.getNoticeId()));
+        }
+        updatedNotice.updateTimestamp();
+        return writeInTransaction(updatedNotice, "Failed to update notice");
+    }
+
+    @Override
+    public synchronized boolean deleteNotice(String noticeId) {
+        ensureSeeded();
+        SQLiteDatabase db = openHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            Notice deleted = getNoticeById(noticeId);
+            delete(db, noticeId);
+            db.setTransactionSuccessful();
+            if (deleted != null) {
+                rememberDeleted(deleted);
+            }
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Failed to delete notice", e);
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+        refreshLiveQueries();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean restoreNotice(String noticeId) {
+        ensureSeeded();
+        Notice deleted = recentlyDeleted.remove(noticeId);
+        Long at = deletedAt.remove(noticeId);
+        if (deleted == null || System.currentTimeMillis() - at > UNDO_WINDOW_MS) {
+            return false;
+        }
+        if (rowId(openHelper.getReadableDatabase(), noticeId) >= 0) {
+            return false;
+        }
+        return writeInTransaction(deleted, "Failed to restore notice");
+    }
+
+    private void rememberDeleted(Notice notice) {
+        long now = System.currentTimeMillis();
+        // Drop entries whose undo window has passed
+        Iterator<Map.Entry<String, Long>> entries = deletedAt.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Long> entry = entries.next();
+            if (now - entry.getValue() > UNDO_WINDOW_MS) {
+                recentlyDeleted.remove(entry.getKey());
+                entries.remove();
+            }
+        }
+        recentlyDeleted.put(notice.getNoticeId(), notice);
+        deletedAt.put(notice.getNoticeId(), now);
+    }
+
+    /**
+     * Apply a batch of mutations in one transaction, rolled back if any of them fails
+     */
+    @Override
+    public synchronized boolean applyBatch(List<NoticeMutation> mutations) {
+        ensureSeeded();
+        SQLiteDatabase db = openHelper.getWritableDatabase();
+        List<Notice> deleted = new ArrayList<>();
+        db.beginTransaction();
+        try {
+            for (NoticeMutation mutation : mutations) {
+                String noticeId = mutation.getNoticeId();
+                switch (mutation.getType()) {
+                    case ADD:
+                        write(db, mutation.getNotice());
+                        break;
+                    case UPDATE:
+                        if (rowId(db, noticeId) < 0) {
+                            return false;
+                        }
+                        if (!mutation.getNotice().isBodyLoaded()) {
+                            mutation.getNotice().setDescription(getNoticeBody(noticeId));
+                        }
+                        mutation.getNotice().updateTimestamp();
+                        write(db, mutation.getNotice());
+                        break;
+                    case ARCHIVE:
+                        if (!setArchived(db, noticeId, mutation.isArchive())) {
+                            return false;
+                        }
+                        break;
+                    case DELETE:
+                        Notice notice = getNoticeById(noticeId);
+                        if (notice != null) {
+                            deleted.add(notice);
+                        }
+                        delete(db, noticeId);
+                        break;
+                }
+            }
+            db.setTransactionSuccessful();
+            for (Notice notice : deleted) {
+                rememberDeleted(notice);
+            }
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Failed to apply notice batch", e);
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+        refreshLiveQueries();
+        return true;
+    }
+
+    @Override
+    public synchronized int sweepExpired(long now, int maxNotices) {
+        ensureSeeded();
+        List<NoticeMutation> mutations = new ArrayList<>();
+        try (Cursor cursor = openHelper.getReadableDatabase().rawQuery("SELECT notice_id, category FROM " + TABLE_NOTICES
+                + " WHERE is_archived = 0 AND expires_at > 0 AND expires_at <= ? ORDER BY expires_at LIMIT ?",
+                new String[]{String.valueOf(now), String.valueOf(maxNotices)})) {
+            while (cursor.moveToNext()) {
+                NoticeCategory category = parseCategory(cursor.getString(1));
+                if (category != null && category.getRetentionPolicy() == RetentionPolicy.PURGE) {
+                    mutations.add(NoticeMutation.delete(cursor.getString(0)));
+                } else {
+                    mutations.add(NoticeMutation.archive(cursor.getString(0), true));
+                }
+            }
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Failed to find expired notices", e);
+            return 0;
+        }
+        if (mutations.isEmpty() || !applyBatch(mutations)) {
+            return 0;
+        }
+        return mutations.size();
+    }
+
+    @Override
+    public synchronized List<Notice> getNoticesByCategory(NoticeCategory category) {
+        ensureSeeded();
+        return getNoticesByCategory(category, null, Integer.MAX_VALUE).getNotices();
+    }
+
+    @Override
+    public synchronized NoticePage getNoticesByCategory(NoticeCategory category, String afterCursor, int limit) {
+        ensureSeeded();
+        if (category == null) {
+            return new NoticePage(new ArrayList<>(), null);
+        }
+        return page(" WHERE is_archived = 0 AND category = ?", new String[]{category.name()}, afterCursor, limit);
+    }
+
+    @Override
+    public synchronized List<Notice> getNoticesForUser(User user) {
+        ensureSeeded();
+        return getNoticesForUser(user, null, Integer.MAX_VALUE).getNotices();
+    }
+
+    @Override
+    public synchronized NoticePage getNoticesForUser(User user, String afterCursor, int limit) {
+        ensureSeeded();
+        if (user.getDepartment() == null) {
+            return page(" WHERE " + VISIBLE_TO_ALL + ")", new String[0], afterCursor, limit);
+        }
+        return page(" WHERE " + VISIBLE_TO_ALL + VISIBLE_IN_DEPARTMENT + ")",
+                new String[]{user.getDepartment()}, afterCursor, limit);
+    }
+
+    @Override
+    public synchronized List<Notice> getNoticesByCreator(String userId) {
+        ensureSeeded();
+        return getNoticesByCreator(userId, null, Integer.MAX_VALUE).getNotices();
+    }
+
+    @Override
+    public synchronized NoticePage getNoticesByCreator(String userId, String afterCursor, int limit) {
+        ensureSeeded();
+        return page(" WHERE created_by = ?", new String[]{userId}, afterCursor, limit);
+    }
+
+    @Override
+    public synchronized List<Notice> searchNotices(String query, User user) {
+        ensureSeeded();
+        String match = ftsMatch(query);
+        if (match == null) {
+            return new ArrayList<>();
+        }
+        List<String> args = new ArrayList<>();
+        args.add(match);
+        String visibility = VISIBLE_TO_ALL;
+        if (user.getDepartment() != null) {
+            visibility += VISIBLE_IN_DEPARTMENT;
+            args.add(user.getDepartment());
+        }
+        return query(SELECT_PREVIEWS
+                + " WHERE " + MATCHES_TEXT + " AND " + visibility + ")" + ORDER_NEWEST_FIRST,
+                args.toArray(new String[0]));
+    }
+
+    /**
+     * Turn the text of a search into an FTS prefix query, or null if it has no words
+     */
+    private static String ftsMatch(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        NoticeSearchIndex.tokenize(text, terms);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        // Terms are plain alphanumerics, so they are safe to splice into an FTS prefix query
+        StringBuilder match = new StringBuilder();
+        for (String term : terms) {
+            match.append(match.length() > 0 ? " " : "").append(term).append('*');
+        }
+        return match.toString();
+    }
+
+    /**
+     * Translate a query into one statement; SQLite picks the index
+     */
+    @Override
+    public synchronized List<Notice> query(NoticeQuery query) {
+        ensureSeeded();
+        if (query.isArchived() && query.getVisibleTo() != null) {
+            // Archived notices are not visible to anyone
+            return new ArrayList<>();
+        }
+        // Archived notices are not visible to anyone, so a user's query over both tiers reads live ones only
+        boolean bothTiers = query.includesArchived() && query.getVisibleTo() == null;
+        StringBuilder where = new StringBuilder(bothTiers ? " WHERE 1" : " WHERE is_archived = ?");
+        List<String> args = new ArrayList<>();
+        if (!bothTiers) {
+            args.add(query.isArchived() ? "1" : "0");
+        }
+        if (!query.getCategories().isEmpty()) {
+            List<String> categories = new ArrayList<>();
+            for (NoticeCategory category : query.getCategories()) {
+                categories.add(category.name());
+            }
+            appendIn(where, "category", categories, args);
+        }
+        if (!query.getDepartments().isEmpty()) {
+            appendIn(where, "department", query.getDepartments(), args);
+        }
+        if (query.getCreatedBy() != null) {
+            where.append(" AND created_by = ?");
+            args.add(query.getCreatedBy());
+        }
+        if (query.getMinPriority() != Integer.MIN_VALUE) {
+            where.append(" AND priority >= ?");
+            args.add(String.valueOf(query.getMinPriority()));
+        }
+        if (query.getMaxPriority() != Integer.MAX_VALUE) {
+            where.append(" AND priority <= ?");
+            args.add(String.valueOf(query.getMaxPriority()));
+        }
+        if (query.getCreatedFrom() != Long.MIN_VALUE) {
+            where.append(" AND created_at >= ?");
+            args.add(String.valueOf(query.getCreatedFrom()));
+        }
+        if (query.getCreatedUntil() != Long.MAX_VALUE) {
+            where.append(" AND created_at < ?");
+            args.add(String.valueOf(query.getCreatedUntil()));
+        }
+        if (query.getText() != null) {
+            String match = ftsMatch(query.getText());
+            if (match == null) {
+                return new ArrayList<>();
+            }
+            where.append(" AND ").append(MATCHES_TEXT);
+            args.add(match);
+        }
+        User user = query.getVisibleTo();
+        if (user != null) {
+            where.append(" AND ").append(VISIBLE_TO_ALL);
+            if (user.getDepartment() != null) {
+                where.append(VISIBLE_IN_DEPARTMENT);
+                args.add(user.getDepartment());
+            }
+            where.append(")");
+        }
+        NoticeIndex.Key after = query.getAfter();
+        if (after != null) {
+            if (query.getSort() == NoticeQuery.Sort.PRIORITY) {
+                where.append(AFTER_CURSOR_PRIORITY);
+                args.add(String.valueOf(query.getAfterPriority()));
+                args.add(String.valueOf(query.getAfterPriority()));
+            } else {
+                where.append(query.getSort() == NoticeQuery.Sort.OLDEST_FIRST ? AFTER_CURSOR_OLDEST_FIRST : AFTER_CURSOR);
+            }
+            args.add(String.valueOf(after.createdAt));
+            args.add(String.valueOf(after.createdAt));
+            args.add(after.noticeId);
+        }
+        switch (query.getSort()) {
+            case OLDEST_FIRST:
+                where.append(" ORDER BY created_at ASC, notice_id DESC");
+                break;
+            case PRIORITY:
+                where.append(" ORDER BY priority DESC, created_at DESC, notice_id ASC");
+                break;
+            default:
+                where.append(ORDER_NEWEST_FIRST);
+                break;
+        }
+        if (query.getLimit() < Integer.MAX_VALUE) {
+            where.append(" LIMIT ").append(query.getLimit());
+        }
+        return query(SELECT_PREVIEWS + where, args.toArray(new String[0]));
+    }
+
+    private static void appendIn(StringBuilder where, String column, Collection<String> values, List<String> args) {
+        where.append(" AND ").append(column).append(" IN (");
+        for (int i = 0; i < values.size(); i++) {
+            where.append(i > 0 ? ", ?" : "?");
+        }
+        where.append(")");
+        args.addAll(values);
+    }
+
+    /**
+     * Keep a query's results up to date; each write re-runs it for the loaded results.
+     * The first page is loaded in the background.
+     */
+    @Override
+    public LiveQuery observe(NoticeQuery query, int pageSize, Executor executor, LiveQuery.Listener listener) {
+        LiveQuery liveQuery = new LiveQuery(query, pageSize, executor, listener, liveQueryOwner);
+        liveQueries.add(liveQuery);
+        liveQuery.loadMore();
+        return liveQuery;
+    }
+
+    @Override
+    public synchronized boolean archiveNotice(String noticeId, boolean archive) {
+        ensureSeeded();
+        try {
+            boolean archived = setArchived(openHelper.getWritableDatabase(), noticeId, archive);
+            if (archived) {
+                refreshLiveQueries();
+            }
+            return archived;
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Failed to archive notice", e);
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized List<Notice> getArchivedNotices() {
+        ensureSeeded();
+        return getArchivedNotices(null, Integer.MAX_VALUE).getNotices();
+    }
+
+    @Override
+    public synchronized NoticePage getArchivedNotices(String afterCursor, int limit) {
+        ensureSeeded();
+        return page(" WHERE is_archived = 1", new String[0], afterCursor, limit);
+    }
+
+    @Override
+    public synchronized Notice getNoticeById(String noticeId) {
+        ensureSeeded();
+        List<Notice> result = query(SELECT_NOTICES + " WHERE notice_id = ?", new String[]{noticeId});
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    @Override
+    public synchronized String getNoticeBody(String noticeId) {
+        ensureSeeded();
+        try (Cursor cursor = openHelper.getReadableDatabase().rawQuery(
+                "SELECT description FROM " + TABLE_NOTICES + " WHERE notice_id = ?", new String[]{noticeId})) {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Failed to read notice body", e);
+            return null;
+        }
+    }
+
+    /**
+     * A single-row lookup already reads the whole row
+     */
+    @Override
+    public synchronized Notice getFullNotice(String noticeId) {
+        ensureSeeded();
+        return getNoticeById(noticeId);
+    }
+
+    /**
+     * Read one page of a newest-first query, fetching one extra row to know whether another page exists
+     */
+    private NoticePage page(String where, String[] whereArgs, String afterCursor, int limit) {
+        List<String> args = new ArrayList<>();
+        for (String arg : whereArgs) {
+            args.add(arg);
+        }
+        String sql = SELECT_PREVIEWS + where;
+        NoticeIndex.Key after = NoticeIndex.Key.fromCursor(afterCursor);
+        if (after != null) {
+            sql += AFTER_CURSOR;
+            args.add(String.valueOf(after.createdAt));
+            args.add(String.valueOf(after.createdAt));
+            args.add(after.noticeId);
+        }
+        sql += ORDER_NEWEST_FIRST;
+        if (limit < Integer.MAX_VALUE) {
+            sql += " LIMIT " + (limit + 1);
+        }
+
+        List<Notice> notices = query(sql, args.toArray(new String[0]));
+        if (notices.size() <= limit) {
+            return new NoticePage(notices, null);
+        }
+        List<Notice> pageNotices = new ArrayList<>(notices.subList(0, limit));
+        Notice last = pageNotices.get(limit - 1);
+        return new NoticePage(pageNotices, new NoticeIndex.Key(last.getCreatedAt(), last.getNoticeId()).toCursor());
+    }
+
+    private List<Notice> query(String sql, String[] args) {
+        List<Notice> notices = new ArrayList<>();
+        boolean preview = sql.startsWith(SELECT_PREVIEWS);
+        try (Cursor cursor = openHelper.getReadableDatabase().rawQuery(sql, args)) {
+            while (cursor.moveToNext()) {
+                Notice notice = readHeader(cursor);
+                readBody(cursor, notice);
+                if (preview) {
+                    notice.setDescriptionPreview(notice.getDescription());
+                }
+                notices.add(notice);
+            }
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Failed to query notices", e);
+        }
+        return notices;
+    }
+
+    private boolean writeInTransaction(Notice notice, String failureMessage) {
+        SQLiteDatabase db = openHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            write(db, notice);
+            db.setTransactionSuccessful();
+        } catch (SQLiteException e) {
+            Log.e(TAG, failureMessage, e);
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+        refreshLiveQueries();
+        return true;
+    }
+
+    /**
+     * Re-run every live query for as many results as it has loaded; it delivers what changed
+     */
+    private void refreshLiveQueries() {
+        for (LiveQuery liveQuery : liveQueries) {
+            liveQuery.replace(query(liveQuery.loadedQuery()));
+        }
+    }
+
+    /**
+     * Insert or replace a notice and its full-text row; the caller owns the transaction
+     */
+    private void write(SQLiteDatabase db, Notice notice) {
+        ContentValues values = new ContentValues();
+        values.put("notice_id", notice.getNoticeId());
+        values.put("title", notice.getTitle());
+        values.put("category", notice.getCategory() != null ? notice.getCategory().name() : null);
+        values.put("created_by", notice.getCreatedBy());
+        values.put("created_by_name", notice.getCreatedByName());
+        values.put("created_at", notice.getCreatedAt());
+        values.put("updated_at", notice.getUpdatedAt());
+        values.put("is_archived", notice.isArchived() ? 1 : 0);
+        values.put("department", notice.getDepartment());
+        values.put("subject", notice.getSubject());
+        values.put("priority", notice.getPriority());
+        values.put("expires_at", notice.getExpiresAt());
+        values.put("description", notice.getDescription());
+        values.put("attachments", gson.toJson(notice.getAttachments()));
+
+        // Updating in place keeps the row ID, and with it the insertion order
+        long rowId = rowId(db, notice.getNoticeId());
+        if (rowId >= 0) {
+            db.update(TABLE_NOTICES, values, "_id = ?", new String[]{String.valueOf(rowId)});
+            db.delete(TABLE_FTS, "docid = ?", new String[]{String.valueOf(rowId)});
+        } else {
+            rowId = db.insertOrThrow(TABLE_NOTICES, null, values);
+        }
+
+        ContentValues text = new ContentValues();
+        text.put("docid", rowId);
+        text.put("title", notice.getTitle());
+        text.put("description", notice.getDescription());
+        text.put("subject", notice.getSubject());
+        text.put("created_by_name", notice.getCreatedByName());
+        db.insertOrThrow(TABLE_FTS, null, text);
+    }
+
+    private static void delete(SQLiteDatabase db, String noticeId) {
+        long rowId = rowId(db, noticeId);
+        if (rowId >= 0) {
+            db.delete(TABLE_FTS, "docid = ?", new String[]{String.valueOf(rowId)});
+            db.delete(TABLE_NOTICES, "_id = ?", new String[]{String.valueOf(rowId)});
+        }
+    }
+
+    private static boolean setArchived(SQLiteDatabase db, String noticeId, boolean archive) {
+        ContentValues values = new ContentValues();
+        values.put("is_archived", archive ? 1 : 0);
+        values.put("updated_at", System.currentTimeMillis());
+        return db.update(TABLE_NOTICES, values, "notice_id = ?", new String[]{noticeId}) > 0;
+    }
+
+    private static long rowId(SQLiteDatabase db, String noticeId) {
+        try (Cursor cursor = db.rawQuery("SELECT _id FROM " + TABLE_NOTICES + " WHERE notice_id = ?", new String[]{noticeId})) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        }
+    }
+
+    /**
+     * Read the header columns of the current row (see COLUMNS for the order)
+     */
+    private static Notice readHeader(Cursor cursor) {
+        Notice notice = new Notice();
+        notice.setNoticeId(cursor.getString(0));
+        notice.setTitle(cursor.getString(1));
+        notice.setCategory(parseCategory(cursor.getString(2)));
+        notice.setCreatedBy(cursor.getString(3));
+        notice.setCreatedByName(cursor.getString(4));
+        notice.setCreatedAt(cursor.getLong(5));
+        notice.setUpdatedAt(cursor.getLong(6));
+        notice.setArchived(cursor.getInt(7) != 0);
+        notice.setDepartment(cursor.getString(8));
+        notice.setSubject(cursor.getString(9));
+        notice.setPriority(cursor.getInt(10));
+        notice.setExpiresAt(cursor.getLong(11));
+        return notice;
+    }
+
+    private void readBody(Cursor cursor, Notice notice) {
+        notice.setDescription(cursor.getString(12));
+        List<String> attachments = cursor.isNull(13) ? null : gson.fromJson(cursor.getString(13), ATTACHMENT_LIST_TYPE);
+        notice.setAttachments(attachments != null ? attachments : new ArrayList<>());
+    }
+
+    private static NoticeCategory parseCategory(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return NoticeCategory.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static class OpenHelper extends SQLiteOpenHelper {
+
+        OpenHelper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE_NOTICES + " ("
+                    + "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                    + "notice_id TEXT NOT NULL UNIQUE, "
+                    + "title TEXT, "
+                    + "category TEXT, "
+                    + "created_by TEXT, "
+                    + "created_by_name TEXT, "
+                    + "created_at INTEGER NOT NULL, "
+                    + "updated_at INTEGER NOT NULL, "
+                    + "is_archived INTEGER NOT NULL DEFAULT 0, "
+                    + "department TEXT, "
+                    + "subject TEXT, "
+                    + "priority INTEGER NOT NULL DEFAULT 0, "
+                    + "expires_at INTEGER NOT NULL DEFAULT 0, "
+                    + "description TEXT, "
+                    + "attachments TEXT)");
+            // Each lookup column is followed by the feed sort order
+            db.execSQL("CREATE INDEX idx_notices_category ON " + TABLE_NOTICES
+                    + " (is_archived, category, created_at DESC, notice_id)");
+            db.execSQL("CREATE INDEX idx_notices_department ON " + TABLE_NOTICES
+                    + " (is_archived, department, category, created_at DESC, notice_id)");
+            db.execSQL("CREATE INDEX idx_notices_creator ON " + TABLE_NOTICES
+                    + " (created_by, created_at DESC, notice_id)");
+            db.execSQL("CREATE INDEX idx_notices_archived ON " + TABLE_NOTICES
+                    + " (is_archived, created_at DESC, notice_id)");
+            createExpiryIndex(db);
+            db.execSQL("CREATE VIRTUAL TABLE " + TABLE_FTS + " USING fts4("
+                    + "title, description, subject, created_by_name, "
+                    + "tokenize=unicode61, prefix=\"2,3\")");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            if (oldVersion < 2) {
+                db.execSQL("ALTER TABLE " + TABLE_NOTICES + " ADD COLUMN expires_at INTEGER NOT NULL DEFAULT 0");
+                createExpiryIndex(db);
+            }
+        }
+
+        /**
+         * Live notices in expiry order, for the retention sweeper
+         */
+        private static void createExpiryIndex(SQLiteDatabase db) {
+            db.execSQL("CREATE INDEX idx_notices_expiry ON " + TABLE_NOTICES + " (is_archived, expires_at)");
+        }
+    }
+}
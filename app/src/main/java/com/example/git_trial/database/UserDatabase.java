@@ -2,80 +2,189 @@ package com.example.git_trial.database;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.util.Base64;
+import android.util.Log;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.example.git_trial.model.User;
 import com.example.git_trial.model.UserRole;
+import com.example.git_trial.utils.StartupTimings;
 
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * Database manager for handling user data using SharedPreferences
- * In a production app, this would be replaced with SQLite or Room database
+ * Database manager for handling user data.
+ * Users are stored in a BinaryCodec file and the logged-in user in
+ * SharedPreferences as Base64 of the same encoding. Gson JSON written by
+ * older versions is migrated transparently on first load. The user list is
+ * read on first use and kept in memory, so reading the logged-in user never
+ * parses it; changes to it are group-committed, so a burst of edits
+ * rewrites the file once per GroupCommit window or on flush().
  */
 public class UserDatabase {
+    private static final String TAG = "UserDatabase";
     private static final String PREFS_NAME = "snb_user_prefs";
     private static final String USERS_KEY = "users";
     private static final String CURRENT_USER_KEY = "current_user";
+    private static final String USERS_FILE_NAME = "users.bin";
+    // Size of a stored user list with no users; a file no bigger than this needs no parsing
+    private static final int EMPTY_USERS_FILE_SIZE = BinaryCodec.encodeUsers(Collections.emptyList()).length;
     
     private SharedPreferences sharedPreferences;
     private Gson gson;
+    private File usersFile;
+    private List<User> users;
+    private boolean usersDirty;
+    private final GroupCommit groupCommit = new GroupCommit(this::flush);
     
     public UserDatabase(Context context) {
         this.sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         this.gson = new Gson();
-        initializeDefaultUsers();
+        this.usersFile = new File(context.getFilesDir(), USERS_FILE_NAME);
+        migrateLegacyUsers();
+    }
+    
+    /**
+     * Convert users and the current session from the legacy JSON format
+     */
+    private void migrateLegacyUsers() {
+        String usersJson = sharedPreferences.getString(USERS_KEY, null);
+        if (usersJson != null) {
+            if (!usersFile.exists()) {
+                Type listType = new TypeToken<List<User>>(){}.getType();
+                List<User> users = gson.fromJson(usersJson, listType);
+                if (users != null) {
+                    saveAllUsers(users);
+                    flush();
+                }
+            }
+            sharedPreferences.edit().remove(USERS_KEY).apply();
+        }
+        
+        String currentUser = sharedPreferences.getString(CURRENT_USER_KEY, null);
+        if (currentUser != null && currentUser.startsWith("{")) {
+            setCurrentUser(gson.fromJson(currentUser, User.class));
+        }
     }
     
     /**
      * Initialize default users including hardcoded admin accounts
      */
     private void initializeDefaultUsers() {
-        List<User> users = getAllUsers();
-        if (users.isEmpty()) {
-            // Create default admin accounts
-            User admin1 = new User("admin", "admin@snb.edu", "admin123", UserRole.ADMIN, "System Administrator", "Administration");
-            User admin2 = new User("hod_cs", "hod@cs.edu", "hod123", UserRole.ADMIN, "Head of Department", "Computer Science");
-            
-            // Create sample teacher
-            User teacher = new User("teacher1", "teacher@cs.edu", "teacher123", UserRole.TEACHER, "John Doe", "Computer Science");
-            
-            // Create sample student
-            User student = new User("student1", "student@cs.edu", "student123", UserRole.STUDENT, "Jane Smith", "Computer Science");
-            
-            users.add(admin1);
-            users.add(admin2);
-            users.add(teacher);
-            users.add(student);
-            
-            saveAllUsers(users);
-        }
+        List<User> users = new ArrayList<>();
+        // Create default admin accounts
+        User admin1 = new User("admin", "admin@snb.edu", "admin123", UserRole.ADMIN, "System Administrator", "Administration");
+        User admin2 = new User("hod_cs", "hod@cs.edu", "hod123", UserRole.ADMIN, "Head of Department", "Computer Science");
+        
+        // Create sample teacher
+        User teacher = new User("teacher1", "teacher@cs.edu", "teacher123", UserRole.TEACHER, "John Doe", "Computer Science");
+        
+        // Create sample student
+        User student = new User("student1", "student@cs.edu", "student123", UserRole.STUDENT, "Jane Smith", "Computer Science");
+        
+        users.add(admin1);
+        users.add(admin2);
+        users.add(teacher);
+        users.add(student);
+        
+        saveAllUsers(users);
+        flush();
     }
     
     /**
      * Get all users from database
      */
-    public List<User> getAllUsers() {
-        String json = sharedPreferences.getString(USERS_KEY, "[]");
-        Type listType = new TypeToken<List<User>>(){}.getType();
-        List<User> users = gson.fromJson(json, listType);
-        return users != null ? users : new ArrayList<>();
+    public synchronized List<User> getAllUsers() {
+        ensureLoaded();
+        return new ArrayList<>(users);
     }
     
     /**
-     * Save all users to database
+     * Read the user list now, seeding an empty store with the default users,
+     * so the first login does not wait for it; meant for a background thread during startup
      */
-    public void saveAllUsers(List<User> users) {
-        String json = gson.toJson(users);
-        sharedPreferences.edit().putString(USERS_KEY, json).apply();
+    public synchronized void warmUp() {
+        ensureLoaded();
+    }
+    
+    private void ensureLoaded() {
+        if (users != null) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (usersFile.length() <= EMPTY_USERS_FILE_SIZE) {
+            // No users stored (length is 0 if there is no file), so skip the read and seed
+            initializeDefaultUsers();
+        } else {
+            users = readUsers();
+        }
+        StartupTimings.record("users.load", start);
+    }
+    
+    private List<User> readUsers() {
+        if (!usersFile.exists()) {
+            return new ArrayList<>();
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(usersFile))) {
+            byte[] data = new byte[(int) usersFile.length()];
+            in.readFully(data);
+            return BinaryCodec.decodeUsers(data);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read users", e);
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Save all users to database (written out by the next group commit)
+     */
+    public synchronized void saveAllUsers(List<User> users) {
+        this.users = new ArrayList<>(users);
+        usersDirty = true;
+        groupCommit.mutated();
+    }
+    
+    /**
+     * Write the user list now if it has unsaved changes; called at lifecycle points such as onStop
+     */
+    public synchronized void flush() {
+        if (!usersDirty) {
+            return;
+        }
+        File tempFile = new File(usersFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            out.write(BinaryCodec.encodeUsers(users));
+            out.getFD().sync();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to save users", e);
+            return;
+        }
+        if (!tempFile.renameTo(usersFile)) {
+            Log.e(TAG, "Failed to replace " + usersFile);
+            return;
+        }
+        usersDirty = false;
+    }
+    
+    /**
+     * Set how long user changes may be coalesced and how many may pile up before they are flushed
+     */
+    public void setWriteCoalescing(long windowMillis, int maxPendingWrites) {
+        groupCommit.configure(windowMillis, maxPendingWrites);
     }
     
     /**
      * Add a new user
      */
-    public boolean addUser(User user) {
+    public synchronized boolean addUser(User user) {
         List<User> users = getAllUsers();
         
         // Check if username or email already exists
@@ -94,7 +203,7 @@ public class UserDatabase {
     /**
      * Authenticate user
      */
-    public User authenticate(String username, String password) {
+    public synchronized User authenticate(String username, String password) {
         List<User> users = getAllUsers();
         for (User user : users) {
             if ((user.getUsername().equals(username) || user.getEmail().equals(username)) && 
@@ -110,17 +219,21 @@ public class UserDatabase {
      * Set current logged-in user
      */
     public void setCurrentUser(User user) {
-        String json = gson.toJson(user);
-        sharedPreferences.edit().putString(CURRENT_USER_KEY, json).apply();
+        String encoded = Base64.encodeToString(BinaryCodec.encodeUser(user), Base64.NO_WRAP);
+        sharedPreferences.edit().putString(CURRENT_USER_KEY, encoded).apply();
     }
     
     /**
      * Get current logged-in user
      */
     public User getCurrentUser() {
-        String json = sharedPreferences.getString(CURRENT_USER_KEY, null);
-        if (json != null) {
-            return gson.fromJson(json, User.class);
+        String encoded = sharedPreferences.getString(CURRENT_USER_KEY, null);
+        if (encoded != null) {
+            try {
+                return BinaryCodec.decodeUser(Base64.decode(encoded, Base64.NO_WRAP));
+            } catch (IOException | IllegalArgumentException e) {
+                Log.e(TAG, "Failed to read current user", e);
+            }
         }
         return null;
     }
@@ -135,7 +248,7 @@ public class UserDatabase {
     /**
      * Update user information
      */
-    public boolean updateUser(User updatedUser) {
+    public synchronized boolean updateUser(User updatedUser) {
         List<User> users = getAllUsers();
         for (int i = 0; i < users.size(); i++) {
             if (users.get(i).getUserId().equals(updatedUser.getUserId())) {
@@ -150,7 +263,7 @@ public class UserDatabase {
     /**
      * Delete user
      */
-    public boolean deleteUser(String userId) {
+    public synchronized boolean deleteUser(String userId) {
         List<User> users = getAllUsers();
         users.removeIf(user -> user.getUserId().equals(userId));
         saveAllUsers(users);
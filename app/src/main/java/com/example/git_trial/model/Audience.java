@@ -0,0 +1,97 @@
+package com.example.git_trial.model;
+
+import java.util.Arrays;
+
+/**
+ * Audience bitmaps: who a notice is for, and which audiences a user belongs
+ * to, as one long each. A user can see a notice when the two share a bit,
+ * so the visibility check is a single AND however many kinds of audience
+ * there are. Bit 0 is everyone; departments get the next bits in the order
+ * they are first seen. Departments past the 62nd share the last bit, which
+ * only narrows the candidates and is confirmed by comparing department codes.
+ * Like StringDictionary codes, bits are only meaningful within this process.
+ */
+public final class Audience {
+    public static final long EVERYONE = 1L;
+    /** Shared by every department that did not get a bit of its own; matches on it need a department check */
+    public static final long SHARED_DEPARTMENTS = 1L << 63;
+
+    private static final int FIRST_DEPARTMENT_BIT = 1;
+    private static final int LAST_DEPARTMENT_BIT = 62;
+
+    // Index = department code (StringDictionary); copied on every change, so reads need no lock
+    private static volatile long[] departmentBits = new long[64];
+    private static int nextBit = FIRST_DEPARTMENT_BIT;
+
+    private Audience() {
+    }
+
+    /**
+     * The bit of a department, given as a StringDictionary code; 0 for no department
+     */
+    public static long department(int departmentCode) {
+        if (departmentCode == StringDictionary.NONE) {
+            return 0;
+        }
+        long[] bits = departmentBits;
+        if (departmentCode < bits.length && bits[departmentCode] != 0) {
+            return bits[departmentCode];
+        }
+        return assignBit(departmentCode);
+    }
+
+    /**
+     * The bit a department already has, without assigning one; 0 if it has none,
+     * in which case no notice or member has that department yet
+     */
+    public static long assignedDepartment(int departmentCode) {
+        long[] bits = departmentBits;
+        return departmentCode > StringDictionary.NONE && departmentCode < bits.length ? bits[departmentCode] : 0;
+    }
+
+    private static synchronized long assignBit(int departmentCode) {
+        long[] bits = departmentBits;
+        if (departmentCode < bits.length && bits[departmentCode] != 0) {
+            return bits[departmentCode];
+        }
+        bits = Arrays.copyOf(bits, Math.max(bits.length, Integer.highestOneBit(departmentCode) * 2));
+        bits[departmentCode] = nextBit <= LAST_DEPARTMENT_BIT ? 1L << nextBit++ : SHARED_DEPARTMENTS;
+        departmentBits = bits;
+        return bits[departmentCode];
+    }
+
+    /**
+     * Who a notice of the given category and department is for
+     */
+    public static long forNotice(NoticeCategory category, int departmentCode) {
+        if (category == null) {
+            return 0;
+        }
+        switch (category) {
+            case COMMON:
+            case ANNUAL:
+                return EVERYONE;
+            case DEPARTMENT:
+            case SUBJECT_SPECIFIC:
+                return department(departmentCode);
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * The audiences a member of the given department belongs to
+     */
+    public static long forMember(int departmentCode) {
+        return EVERYONE | department(departmentCode);
+    }
+
+    /**
+     * Whether a notice's audience reaches a member. Department codes
+     * (StringDictionary) only decide matches on the shared bit.
+     */
+    public static boolean reaches(long noticeAudience, int noticeDepartment, long memberAudience, int memberDepartment) {
+        long shared = noticeAudience & memberAudience;
+        return (shared & ~SHARED_DEPARTMENTS) != 0 || (shared != 0 && noticeDepartment == memberDepartment);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.git_trial.model;
+
+import java.security.SecureRandom;
+
+/**
+ * Generates 64-bit IDs for notices and users: 41 bits of milliseconds since
+ * 2024-01-01 UTC, a 10-bit node number and a 12-bit sequence. IDs from one
+ * process are strictly increasing, even within one millisecond or if the
+ * clock steps back, and the node number keeps separate installs apart. IDs
+ * are stored and passed around in decimal string form; parse() turns them
+ * back into the number used as the lookup key.
+ */
+public final class IdGenerator {
+    /** Returned by parse() for strings that are not generated IDs */
+    public static final long NO_ID = -1;
+
+    private static final long EPOCH_MILLIS = 1704067200000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private static long node = new SecureRandom().nextInt(1 << NODE_BITS);
+    private static long lastMillis = -1;
+    private static long sequence;
+
+    private IdGenerator() {
+    }
+
+    /**
+     * Use a fixed node number (0 to 1023) instead of the random one picked at startup
+     */
+    public static synchronized void setNodeId(int nodeId) {
+        node = nodeId & ((1 << NODE_BITS) - 1);
+    }
+
+    public static long next() {
+        return next(System.currentTimeMillis());
+    }
+
+    /**
+     * The next ID as of a given wall clock time; package-private so tests can step the clock
+     */
+    static synchronized long next(long currentTimeMillis) {
+        long millis = Math.max(currentTimeMillis - EPOCH_MILLIS, lastMillis);
+        if (millis == lastMillis) {
+            sequence = (sequence + 1) & MAX_SEQUENCE;
+            if (sequence == 0) {
+                // Sequence exhausted for this millisecond; borrow the next one
+                millis++;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = millis;
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+    }
+
+    public static String nextString() {
+        return Long.toString(next());
+    }
+
+    /**
+     * Read a generated ID from its string form without allocating, or NO_ID if it is not one
+     */
+    public static long parse(String id) {
+        if (id == null || id.isEmpty() || id.length() > 19) {
+            return NO_ID;
+        }
+        long value = 0;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_ID;
+            }
+            value = value * 10 + (c - '0');
+            if (value < 0) {
+                return NO_ID;
+            }
+        }
+        // Only the canonical form maps to an ID, so each ID has exactly one string
+        return id.length() > 1 && id.charAt(0) == '0' ? NO_ID : value;
+    }
+}
@@ -1,26 +1,34 @@
 package com.example.git_trial.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Notice model class representing all notices in the system
+ * Notice model class representing all notices in the system.
+ * Author, department and subject are held as StringDictionary codes; the
+ * String getters resolve them for display.
  */
 public class Notice implements Serializable {
-    private String noticeId;
+    private String noticeId; // Decimal form of an IdGenerator ID
     private String title;
     private String description;
     private NoticeCategory category;
-    private String createdBy; // User ID who created the notice
-    private String createdByName; // Full name for display
+    private transient int createdBy; // User ID who created the notice
+    private transient int createdByName; // Full name for display
     private long createdAt;
     private long updatedAt;
     private boolean isArchived;
     private List<String> attachments; // File paths/URLs for attachments
-    private String department; // Applicable department
-    private String subject; // For subject-specific notices
+    private transient int department; // Applicable department
+    private transient long audience; // Audience bitmap, kept in step with category and department
+    private transient int subject; // For subject-specific notices
     private int priority; // 1 (low) to 5 (high)
+    private long expiresAt; // 0 if the notice never expires
+    private boolean bodyLoaded = true; // False for list copies whose description is only a preview
 
     // Default constructor
     public Notice() {
@@ -36,9 +44,9 @@ public class Notice implements Serializable {
         this();
         this.title = title;
         this.description = description;
-        this.category = category;
-        this.createdBy = createdBy;
-        this.createdByName = createdByName;
+        setCategory(category);
+        setCreatedBy(createdBy);
+        setCreatedByName(createdByName);
         this.noticeId = generateNoticeId();
     }
 
@@ -59,12 +67,28 @@ public class Notice implements Serializable {
         this.title = title;
     }
 
+    /**
+     * The description; only the start of it when isBodyLoaded() is false
+     */
     public String getDescription() {
         return description;
     }
 
     public void setDescription(String description) {
         this.description = description;
+        this.bodyLoaded = true;
+    }
+
+    /**
+     * Turn this into a list copy that only carries the start of its description
+     */
+    public void setDescriptionPreview(String preview) {
+        this.description = preview;
+        this.bodyLoaded = false;
+    }
+
+    public boolean isBodyLoaded() {
+        return bodyLoaded;
     }
 
     public NoticeCategory getCategory() {
@@ -73,21 +97,38 @@ public class Notice implements Serializable {
 
     public void setCategory(NoticeCategory category) {
         this.category = category;
+        this.audience = Audience.forNotice(category, department);
     }
 
     public String getCreatedBy() {
-        return createdBy;
+        return StringDictionary.decode(createdBy);
     }
 
     public void setCreatedBy(String createdBy) {
+        this.createdBy = StringDictionary.encode(createdBy);
+    }
+
+    public int getCreatedByCode() {
+        return createdBy;
+    }
+
+    public void setCreatedByCode(int createdBy) {
         this.createdBy = createdBy;
     }
 
     public String getCreatedByName() {
-        return createdByName;
+        return StringDictionary.decode(createdByName);
     }
 
     public void setCreatedByName(String createdByName) {
+        this.createdByName = StringDictionary.encode(createdByName);
+    }
+
+    public int getCreatedByNameCode() {
+        return createdByName;
+    }
+
+    public void setCreatedByNameCode(int createdByName) {
         this.createdByName = createdByName;
     }
 
@@ -131,18 +172,49 @@ public class Notice implements Serializable {
     }
 
     public String getDepartment() {
-        return department;
+        return StringDictionary.decode(department);
     }
 
     public void setDepartment(String department) {
+        setDepartmentCode(StringDictionary.encode(department));
+    }
+
+    public int getDepartmentCode() {
+        return department;
+    }
+
+    public void setDepartmentCode(int department) {
         this.department = department;
+        this.audience = Audience.forNotice(category, department);
+    }
+
+    /**
+     * Who can see this notice, as an Audience bitmap
+     */
+    public long getAudience() {
+        return audience;
+    }
+
+    /**
+     * Whether a user can see this notice (archived notices are visible to no one)
+     */
+    public boolean isVisibleTo(User user) {
+        return !isArchived && Audience.reaches(audience, department, user.getAudience(), user.getDepartmentCode());
     }
 
     public String getSubject() {
-        return subject;
+        return StringDictionary.decode(subject);
     }
 
     public void setSubject(String subject) {
+        this.subject = StringDictionary.encode(subject);
+    }
+
+    public int getSubjectCode() {
+        return subject;
+    }
+
+    public void setSubjectCode(int subject) {
         this.subject = subject;
     }
 
@@ -154,11 +226,44 @@ public class Notice implements Serializable {
         this.priority = Math.max(1, Math.min(5, priority)); // Ensure priority is between 1 and 5
     }
 
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Set when the notice stops being current (0 for never); the category's
+     * RetentionPolicy is applied to it after that
+     */
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt > 0 && expiresAt <= now;
+    }
+
     private String generateNoticeId() {
-        return "notice_" + System.currentTimeMillis();
+        return IdGenerator.nextString();
     }
 
     public void updateTimestamp() {
         this.updatedAt = System.currentTimeMillis();
     }
+
+    // Dictionary codes are only valid in this process, so serialized notices carry the strings
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeObject(getCreatedBy());
+        out.writeObject(getCreatedByName());
+        out.writeObject(getDepartment());
+        out.writeObject(getSubject());
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        setCreatedBy((String) in.readObject());
+        setCreatedByName((String) in.readObject());
+        setDepartment((String) in.readObject());
+        setSubject((String) in.readObject());
+    }
 }
\ No newline at end of file
@@ -4,18 +4,28 @@ package com.example.git_trial.model;
  * Enum representing different notice categories
  */
 public enum NoticeCategory {
-    COMMON("Common"),
-    DEPARTMENT("Department"),
-    ANNUAL("Annual"),
-    SUBJECT_SPECIFIC("Subject-Specific");
+    COMMON("Common", RetentionPolicy.ARCHIVE),
+    DEPARTMENT("Department", RetentionPolicy.ARCHIVE),
+    ANNUAL("Annual", RetentionPolicy.ARCHIVE),
+    // Mostly short-lived items such as assignment deadlines
+    SUBJECT_SPECIFIC("Subject-Specific", RetentionPolicy.PURGE);
 
     private final String displayName;
+    private final RetentionPolicy retentionPolicy;
 
-    NoticeCategory(String displayName) {
+    NoticeCategory(String displayName, RetentionPolicy retentionPolicy) {
         this.displayName = displayName;
+        this.retentionPolicy = retentionPolicy;
     }
 
     public String getDisplayName() {
         return displayName;
     }
+
+    /**
+     * What the retention sweeper does with expired notices of this category
+     */
+    public RetentionPolicy getRetentionPolicy() {
+        return retentionPolicy;
+    }
 }
\ No newline at end of file
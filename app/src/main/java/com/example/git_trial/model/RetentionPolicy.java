@@ -0,0 +1,11 @@
+package com.example.git_trial.model;
+
+/**
+ * What happens to a notice of a category once its expiry time has passed
+ */
+public enum RetentionPolicy {
+    // Move it out of the feeds into the archive, where admins can still find it
+    ARCHIVE,
+    // Delete it
+    PURGE
+}
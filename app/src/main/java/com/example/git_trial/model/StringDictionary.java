@@ -0,0 +1,76 @@
+package com.example.git_trial.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process-wide dictionary for strings that repeat across many notices and
+ * users (departments, subjects, authors). Each distinct string gets a small
+ * integer code, so models hold one int per field and filters compare codes
+ * instead of strings. Codes are only meaningful within this process; anything
+ * persisted stores the strings or its own dictionary.
+ */
+public final class StringDictionary {
+    /** Code of null */
+    public static final int NONE = 0;
+
+    private static final Map<String, Integer> codes = new HashMap<>();
+    // Index = code; replaced (never mutated in place) when it grows, so decode needs no lock
+    private static volatile String[] values = new String[64];
+    private static int size = 1;
+
+    private StringDictionary() {
+    }
+
+    /**
+     * Get the code for a string, adding it to the dictionary if it is new
+     */
+    public static int encode(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        synchronized (codes) {
+            Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            String[] current = values;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[size] = value;
+            values = current;
+            codes.put(value, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Get the code a string already has, without adding it; NONE if it has none
+     */
+    public static int lookup(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        synchronized (codes) {
+            Integer code = codes.get(value);
+            return code != null ? code : NONE;
+        }
+    }
+
+    /**
+     * Get the string for a code returned by encode
+     */
+    public static String decode(int code) {
+        String[] current = values;
+        return code > NONE && code < current.length ? current[code] : null;
+    }
+
+    /**
+     * Get the shared instance of a string, so equal strings are stored once
+     */
+    public static String intern(String value) {
+        return decode(encode(value));
+    }
+}
@@ -15,6 +15,8 @@ public class User implements Serializable {
     private String department;
     private long createdAt;
     private boolean isActive;
+    private transient volatile long audience; // Audience bitmap, 0 until first needed
+    private transient int departmentCode; // Set before audience, whose volatile write publishes it
 
     // Default constructor
     public User() {
@@ -30,10 +32,23 @@ public class User implements Serializable {
         this.password = password;
         this.role = role;
         this.fullName = fullName;
-        this.department = department;
+        this.department = StringDictionary.intern(department);
         this.userId = generateUserId();
     }
 
+    // Copy constructor, for holders that must not see later changes to the original
+    public User(User user) {
+        this.userId = user.userId;
+        this.username = user.username;
+        this.email = user.email;
+        this.password = user.password;
+        this.role = user.role;
+        this.fullName = user.fullName;
+        this.department = user.department;
+        this.createdAt = user.createdAt;
+        this.isActive = user.isActive;
+    }
+
     // Getters and Setters
     public String getUserId() {
         return userId;
@@ -88,7 +103,27 @@ public class User implements Serializable {
     }
 
     public void setDepartment(String department) {
-        this.department = department;
+        this.department = StringDictionary.intern(department);
+        this.audience = 0;
+    }
+
+    /**
+     * The department as a StringDictionary code, for comparing against notices
+     */
+    public int getDepartmentCode() {
+        getAudience();
+        return departmentCode;
+    }
+
+    /**
+     * The audiences this user belongs to, as an Audience bitmap
+     */
+    public long getAudience() {
+        if (audience == 0) {
+            departmentCode = StringDictionary.encode(department);
+            audience = Audience.forMember(departmentCode);
+        }
+        return audience;
     }
 
     public long getCreatedAt() {
@@ -108,6 +143,6 @@ public class User implements Serializable {
     }
 
     private String generateUserId() {
-        return role.toString().toLowerCase() + "_" + System.currentTimeMillis();
+        return IdGenerator.nextString();
     }
 }
\ No newline at end of file
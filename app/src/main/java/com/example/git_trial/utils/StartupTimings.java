@@ -0,0 +1,52 @@
+package com.example.git_trial.utils;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Timings of the cold start phases, logged as they are recorded. Milestones
+ * (mark) are milliseconds since the process started; phases (record) are
+ * how long a piece of startup work took. Only the first value of each name
+ * is kept, so work that runs again later does not overwrite the startup one.
+ */
+public final class StartupTimings {
+    private static final String TAG = "StartupTimings";
+
+    // Name to milliseconds, in the order they were recorded
+    private static final Map<String, Long> timings = new LinkedHashMap<>();
+
+    private StartupTimings() {
+    }
+
+    /**
+     * Record that a milestone, e.g. the first dashboard frame, was reached now
+     */
+    public static void mark(String milestone) {
+        put(milestone, SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime());
+    }
+
+    /**
+     * Record how long a phase took, given the System.nanoTime() at which it started
+     */
+    public static void record(String phase, long startNanos) {
+        put(phase, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Every timing recorded so far
+     */
+    public static synchronized Map<String, Long> getTimings() {
+        return new LinkedHashMap<>(timings);
+    }
+
+    private static synchronized void put(String name, long millis) {
+        if (!timings.containsKey(name)) {
+            timings.put(name, millis);
+            Log.i(TAG, name + ": " + millis + " ms");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.git_trial.database;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.User;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares BinaryCodec against the JSON format it replaced: encoded size and
+ * encode/decode time over a board of sample notices and users. Notices go
+ * through the legacy JSON layout and NoticeJson, users through Gson. Excluded
+ * from normal test runs; run it with ./gradlew testDebugUnitTest -Pbenchmarks.
+ */
+public class BinaryCodecBenchmark {
+    private static final int NOTICE_COUNT = 5000;
+    private static final int USER_COUNT = 2000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void noticesAgainstJson() throws Exception {
+        List<Notice> notices = new ArrayList<>();
+        for (int i = 0; i < NOTICE_COUNT; i++) {
+            notices.add(BinaryCodecTest.sampleNotice(i));
+        }
+
+        long jsonBytes = 0, binaryBytes = 0;
+        long jsonEncode = Long.MAX_VALUE, jsonDecode = Long.MAX_VALUE;
+        long binaryEncode = Long.MAX_VALUE, binaryDecode = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            String json = LegacyNoticeJson.toJson(notices);
+            jsonEncode = Math.min(jsonEncode, System.nanoTime() - start);
+            start = System.nanoTime();
+            List<Notice> fromJson = NoticeJson.readArray(new StringReader(json), null);
+            jsonDecode = Math.min(jsonDecode, System.nanoTime() - start);
+            jsonBytes = json.getBytes("UTF-8").length;
+            assertEquals(NOTICE_COUNT, fromJson.size());
+
+            start = System.nanoTime();
+            List<byte[]> records = new ArrayList<>(NOTICE_COUNT);
+            long size = 0;
+            for (Notice notice : notices) {
+                byte[] record = BinaryCodec.encodeNotice(notice);
+                records.add(record);
+                size += record.length;
+            }
+            binaryEncode = Math.min(binaryEncode, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (byte[] record : records) {
+                assertNotNull(BinaryCodec.decodeNotice(record, 0, record.length, null));
+            }
+            binaryDecode = Math.min(binaryDecode, System.nanoTime() - start);
+            binaryBytes = size;
+        }
+
+        report("notices", NOTICE_COUNT, jsonBytes, binaryBytes, jsonEncode, binaryEncode, jsonDecode, binaryDecode);
+    }
+
+    @Test
+    public void usersAgainstGson() throws Exception {
+        Gson gson = new Gson();
+        Type listType = new TypeToken<List<User>>(){}.getType();
+        List<User> users = BinaryCodecTest.sampleUsers(USER_COUNT);
+
+        long jsonBytes = 0, binaryBytes = 0;
+        long jsonEncode = Long.MAX_VALUE, jsonDecode = Long.MAX_VALUE;
+        long binaryEncode = Long.MAX_VALUE, binaryDecode = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            String json = gson.toJson(users);
+            jsonEncode = Math.min(jsonEncode, System.nanoTime() - start);
+            start = System.nanoTime();
+            List<User> fromJson = gson.fromJson(json, listType);
+            jsonDecode = Math.min(jsonDecode, System.nanoTime() - start);
+            jsonBytes = json.getBytes("UTF-8").length;
+            assertEquals(USER_COUNT, fromJson.size());
+
+            start = System.nanoTime();
+            byte[] data = BinaryCodec.encodeUsers(users);
+            binaryEncode = Math.min(binaryEncode, System.nanoTime() - start);
+            start = System.nanoTime();
+            assertEquals(USER_COUNT, BinaryCodec.decodeUsers(data).size());
+            binaryDecode = Math.min(binaryDecode, System.nanoTime() - start);
+            binaryBytes = data.length;
+        }
+
+        report("users", USER_COUNT, jsonBytes, binaryBytes, jsonEncode, binaryEncode, jsonDecode, binaryDecode);
+    }
+
+    private static void report(String what, int count, long jsonBytes, long binaryBytes,
+                               long jsonEncode, long binaryEncode, long jsonDecode, long binaryDecode) {
+        System.out.printf("%d %s: size json=%d B binary=%d B (%.0f%%)%n",
+                count, what, jsonBytes, binaryBytes, 100.0 * binaryBytes / jsonBytes);
+        System.out.printf("  encode json=%.2f ms binary=%.2f ms, decode json=%.2f ms binary=%.2f ms%n",
+                jsonEncode / 1e6, binaryEncode / 1e6, jsonDecode / 1e6, binaryDecode / 1e6);
+    }
+}
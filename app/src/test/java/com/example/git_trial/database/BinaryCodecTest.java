@@ -0,0 +1,133 @@
+package com.example.git_trial.database;
+
+import com.google.gson.Gson;
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.NoticeCategory;
+import com.example.git_trial.model.User;
+import com.example.git_trial.model.UserRole;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trips through BinaryCodec, and its encoded size against the JSON format
+ * it replaced. BinaryCodecBenchmark compares their speed.
+ */
+public class BinaryCodecTest {
+    private static final int NOTICE_COUNT = 500;
+    private static final int USER_COUNT = 200;
+
+    @Test
+    public void notice_roundTrip() throws Exception {
+        Notice notice = sampleNotice(5);
+        notice.addAttachment("files/syllabus.pdf");
+        notice.setArchived(true);
+
+        byte[] data = BinaryCodec.encodeNotice(notice);
+        Notice decoded = BinaryCodec.decodeNotice(data, 0, data.length, null);
+
+        assertEquals(notice.getNoticeId(), decoded.getNoticeId());
+        assertEquals(notice.getTitle(), decoded.getTitle());
+        assertEquals(notice.getDescription(), decoded.getDescription());
+        assertEquals(notice.getCategory(), decoded.getCategory());
+        assertEquals(notice.getCreatedBy(), decoded.getCreatedBy());
+        assertEquals(notice.getCreatedByName(), decoded.getCreatedByName());
+        assertEquals(notice.getCreatedAt(), decoded.getCreatedAt());
+        assertEquals(notice.getUpdatedAt(), decoded.getUpdatedAt());
+        assertEquals(notice.isArchived(), decoded.isArchived());
+        assertEquals(notice.getAttachments(), decoded.getAttachments());
+        assertEquals(notice.getDepartment(), decoded.getDepartment());
+        assertNull(decoded.getSubject());
+        assertEquals(notice.getPriority(), decoded.getPriority());
+    }
+
+    @Test
+    public void notice_filterSkipsBody() throws Exception {
+        byte[] data = BinaryCodec.encodeNotice(sampleNotice(1));
+        assertNull(BinaryCodec.decodeNotice(data, 0, data.length,
+                header -> header.getCategory() == NoticeCategory.ANNUAL));
+    }
+
+    @Test
+    public void user_roundTrip() throws Exception {
+        List<User> users = sampleUsers(3);
+        List<User> decoded = BinaryCodec.decodeUsers(BinaryCodec.encodeUsers(users));
+
+        assertEquals(users.size(), decoded.size());
+        for (int i = 0; i < users.size(); i++) {
+            assertEquals(users.get(i).getUserId(), decoded.get(i).getUserId());
+            assertEquals(users.get(i).getEmail(), decoded.get(i).getEmail());
+            assertEquals(users.get(i).getPassword(), decoded.get(i).getPassword());
+            assertEquals(users.get(i).getRole(), decoded.get(i).getRole());
+            assertEquals(users.get(i).getDepartment(), decoded.get(i).getDepartment());
+            assertEquals(users.get(i).getCreatedAt(), decoded.get(i).getCreatedAt());
+            assertEquals(users.get(i).isActive(), decoded.get(i).isActive());
+        }
+    }
+
+    @Test
+    public void notices_smallerThanJson() throws Exception {
+        List<Notice> notices = new ArrayList<>();
+        for (int i = 0; i < NOTICE_COUNT; i++) {
+            notices.add(sampleNotice(i));
+        }
+        long binaryBytes = 0;
+        for (Notice notice : notices) {
+            byte[] record = BinaryCodec.encodeNotice(notice);
+            assertNotNull(BinaryCodec.decodeNotice(record, 0, record.length, null));
+            binaryBytes += record.length;
+        }
+        String json = LegacyNoticeJson.toJson(notices);
+
+        // The JSON holds every field, so the comparison is like for like
+        List<Notice> fromJson = NoticeJson.readArray(new StringReader(json), null);
+        assertEquals(NOTICE_COUNT, fromJson.size());
+        // A subject-specific notice, so every string field is set
+        int i = NoticeCategory.SUBJECT_SPECIFIC.ordinal();
+        assertEquals(notices.get(i).getCreatedBy(), fromJson.get(i).getCreatedBy());
+        assertEquals(notices.get(i).getCreatedByName(), fromJson.get(i).getCreatedByName());
+        assertEquals(notices.get(i).getDepartment(), fromJson.get(i).getDepartment());
+        assertEquals(notices.get(i).getSubject(), fromJson.get(i).getSubject());
+        assertTrue(binaryBytes < json.getBytes("UTF-8").length);
+    }
+
+    @Test
+    public void users_smallerThanGson() throws Exception {
+        List<User> users = sampleUsers(USER_COUNT);
+        byte[] data = BinaryCodec.encodeUsers(users);
+
+        assertEquals(USER_COUNT, BinaryCodec.decodeUsers(data).size());
+        assertTrue(data.length < new Gson().toJson(users).getBytes("UTF-8").length);
+    }
+
+    static Notice sampleNotice(int i) {
+        NoticeCategory category = NoticeCategory.values()[i % NoticeCategory.values().length];
+        Notice notice = new Notice(
+                "Notice " + i + ": Data Structures lab schedule",
+                "The lab session for week " + (i % 15) + " has moved to Room 201. Please bring your assignment printouts.",
+                category,
+                "teacher" + (i % 20),
+                "John Doe");
+        notice.setDepartment(i % 3 == 0 ? "All" : "Computer Science");
+        if (category == NoticeCategory.SUBJECT_SPECIFIC) {
+            notice.setSubject("Data Structures");
+        }
+        notice.setPriority(1 + i % 5);
+        return notice;
+    }
+
+    static List<User> sampleUsers(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UserRole role = UserRole.values()[i % UserRole.values().length];
+            users.add(new User("user" + i, "user" + i + "@cs.edu", "secret" + i, role,
+                    "Student Number " + i, "Computer Science"));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.git_trial.database;
+
+import com.google.gson.stream.JsonWriter;
+import com.example.git_trial.model.Notice;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+/**
+ * Writes notices in the JSON layout older versions stored, with every field in
+ * Gson's reflective order. Plain Gson no longer produces it: the string fields
+ * Notice keeps as dictionary codes are transient, so Gson leaves them out.
+ */
+final class LegacyNoticeJson {
+
+    private LegacyNoticeJson() {
+    }
+
+    static String toJson(List<Notice> notices) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(out)) {
+            // Gson leaves null fields out
+            writer.setSerializeNulls(false);
+            writer.beginArray();
+            for (Notice notice : notices) {
+                writer.beginObject();
+                writer.name("noticeId").value(notice.getNoticeId());
+                writer.name("title").value(notice.getTitle());
+                writer.name("description").value(notice.getDescription());
+                writer.name("category").value(notice.getCategory().name());
+                writer.name("createdBy").value(notice.getCreatedBy());
+                writer.name("createdByName").value(notice.getCreatedByName());
+                writer.name("createdAt").value(notice.getCreatedAt());
+                writer.name("updatedAt").value(notice.getUpdatedAt());
+                writer.name("isArchived").value(notice.isArchived());
+                if (notice.getAttachments() != null) {
+                    writer.name("attachments").beginArray();
+                    for (String attachment : notice.getAttachments()) {
+                        writer.value(attachment);
+                    }
+                    writer.endArray();
+                }
+                writer.name("department").value(notice.getDepartment());
+                writer.name("subject").value(notice.getSubject());
+                writer.name("priority").value(notice.getPriority());
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+        return out.toString();
+    }
+}
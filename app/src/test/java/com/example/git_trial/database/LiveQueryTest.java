@@ -0,0 +1,221 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.NoticeCategory;
+import com.example.git_trial.model.User;
+import com.example.git_trial.model.UserRole;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Applying a live query's events in order to an empty list gives the same
+ * list as running the query again, after every write
+ */
+public class LiveQueryTest {
+    private static final int PAGE_SIZE = 7;
+    private static final String[] DEPARTMENTS = {"Computer Science", "Civil", "Mechanical"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Random random = new Random(11);
+    private final List<String> noticeIds = new ArrayList<>();
+    private NoticeDatabase db;
+
+    @Before
+    public void setUp() {
+        db = new NoticeDatabase(new TestContext(folder.getRoot()));
+        for (int i = 0; i < 60; i++) {
+            add(i);
+        }
+    }
+
+    @Test
+    public void firstPage_arrivesEvenWhenEmpty() throws Exception {
+        Mirror mirror = new Mirror(db, NoticeQuery.builder().createdBy("nobody").build());
+        mirror.awaitPage();
+        assertEquals(1, mirror.inserts);
+        assertTrue(mirror.notices.isEmpty());
+        assertFalse(mirror.liveQuery.hasMore());
+        mirror.liveQuery.close();
+    }
+
+    @Test
+    public void events_rebuildQueryResults() throws Exception {
+        User student = new User("student", "student@cs.edu", "secret", UserRole.STUDENT, "Student", "Civil");
+        List<NoticeQuery> queries = Arrays.asList(
+                NoticeQuery.builder().build(),
+                NoticeQuery.builder().categories(NoticeCategory.COMMON, NoticeCategory.DEPARTMENT).build(),
+                NoticeQuery.builder().visibleTo(student).build(),
+                NoticeQuery.builder().sortBy(NoticeQuery.Sort.PRIORITY).build(),
+                NoticeQuery.builder().sortBy(NoticeQuery.Sort.OLDEST_FIRST).createdBy("creator2").build(),
+                NoticeQuery.builder().archived(true).build(),
+                NoticeQuery.builder().createdBy("creator1").includeArchived(true).build(),
+                NoticeQuery.builder().sortBy(NoticeQuery.Sort.PRIORITY).includeArchived(true).build());
+        List<Mirror> mirrors = new ArrayList<>();
+        for (NoticeQuery query : queries) {
+            Mirror mirror = new Mirror(db, query);
+            mirror.awaitPage();
+            mirrors.add(mirror);
+        }
+
+        for (int step = 0; step < 400; step++) {
+            String noticeId = noticeIds.get(random.nextInt(noticeIds.size()));
+            switch (random.nextInt(6)) {
+                case 0:
+                    add(1000 + step);
+                    break;
+                case 1:
+                    Notice current = db.getFullNotice(noticeId);
+                    if (current != null) {
+                        db.updateNotice(edited(current, step));
+                    }
+                    break;
+                case 2:
+                    db.deleteNotice(noticeId);
+                    break;
+                case 3:
+                    db.restoreNotice(noticeId);
+                    break;
+                case 4:
+                    db.archiveNotice(noticeId, random.nextBoolean());
+                    break;
+                default:
+                    Mirror mirror = mirrors.get(random.nextInt(mirrors.size()));
+                    if (mirror.liveQuery.hasMore()) {
+                        mirror.liveQuery.loadMore();
+                        mirror.awaitPage();
+                    }
+            }
+            for (Mirror mirror : mirrors) {
+                mirror.drain();
+                mirror.assertMatchesQuery("step " + step);
+            }
+        }
+
+        // A closed live query hears nothing more
+        Mirror closed = mirrors.get(0);
+        closed.liveQuery.close();
+        int events = closed.events;
+        add(9999);
+        closed.drain();
+        assertEquals(events, closed.events);
+    }
+
+    private void add(int i) {
+        Notice notice = new Notice("Notice " + i, "About " + i,
+                NoticeCategory.values()[random.nextInt(NoticeCategory.values().length)],
+                "creator" + random.nextInt(4), "Creator");
+        notice.setDepartment(DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+        notice.setCreatedAt(1_000_000 + random.nextInt(200) * 1000L);
+        notice.setPriority(1 + random.nextInt(5));
+        db.addNotice(notice);
+        noticeIds.add(notice.getNoticeId());
+    }
+
+    /**
+     * A separate copy with a new title, priority and category, as an edit screen would submit it
+     */
+    private Notice edited(Notice notice, int step) {
+        Notice copy = new Notice("Edited " + step, notice.getDescription(),
+                NoticeCategory.values()[random.nextInt(NoticeCategory.values().length)],
+                notice.getCreatedBy(), notice.getCreatedByName());
+        copy.setNoticeId(notice.getNoticeId());
+        copy.setCreatedAt(notice.getCreatedAt());
+        copy.setDepartment(notice.getDepartment());
+        copy.setPriority(1 + random.nextInt(5));
+        return copy;
+    }
+
+    /**
+     * A list kept in step with a live query's events, the way an adapter would.
+     * Events are queued as they would be on the main thread and applied on the test thread.
+     */
+    private static final class Mirror implements LiveQuery.Listener {
+        final NoticeDatabase db;
+        final NoticeQuery query;
+        final BlockingQueue<Runnable> queued = new LinkedBlockingQueue<>();
+        final List<Notice> notices = new ArrayList<>();
+        final LiveQuery liveQuery;
+        int events;
+        int inserts;
+
+        Mirror(NoticeDatabase db, NoticeQuery query) {
+            this.db = db;
+            this.query = query;
+            this.liveQuery = db.observe(query, PAGE_SIZE, queued::add, this);
+        }
+
+        /**
+         * Wait for the page load in flight, then apply every queued event
+         */
+        void awaitPage() throws InterruptedException {
+            Runnable page = queued.poll(5, TimeUnit.SECONDS);
+            assertNotNull("page was not delivered", page);
+            page.run();
+            drain();
+        }
+
+        void drain() {
+            Runnable event;
+            while ((event = queued.poll()) != null) {
+                event.run();
+            }
+        }
+
+        void assertMatchesQuery(String when) {
+            List<Notice> expected = db.query(query.withLimit(notices.size() + 1));
+            boolean more = expected.size() > notices.size();
+            if (more) {
+                expected = expected.subList(0, notices.size());
+            }
+            assertEquals(when + " " + query, ids(expected), ids(notices));
+            assertEquals(when + " hasMore " + query, more, liveQuery.hasMore());
+            for (int i = 0; i < notices.size(); i++) {
+                assertEquals(when + " " + query, expected.get(i).getTitle(), notices.get(i).getTitle());
+                assertEquals(when + " " + query, expected.get(i).getPriority(), notices.get(i).getPriority());
+            }
+        }
+
+        @Override
+        public void onInserted(int position, List<Notice> inserted) {
+            events++;
+            inserts++;
+            notices.addAll(position, inserted);
+        }
+
+        @Override
+        public void onChanged(int position, Notice notice) {
+            events++;
+            assertEquals(notices.get(position).getNoticeId(), notice.getNoticeId());
+            notices.set(position, notice);
+        }
+
+        @Override
+        public void onRemoved(int position) {
+            events++;
+            notices.remove(position);
+        }
+
+        private static List<String> ids(List<Notice> notices) {
+            List<String> ids = new ArrayList<>(notices.size());
+            for (Notice notice : notices) {
+                ids.add(notice.getNoticeId());
+            }
+            return ids;
+        }
+    }
+}
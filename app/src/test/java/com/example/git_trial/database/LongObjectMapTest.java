@@ -0,0 +1,128 @@
+package com.example.git_trial.database;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * LongObjectMap against a LinkedHashMap through resizes, removals and reinsertions
+ */
+public class LongObjectMapTest {
+
+    @Test
+    public void putGetRemove_acrossResizes() {
+        LongObjectMap<String> map = new LongObjectMap<>(4);
+        Map<Long, String> expected = new LinkedHashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(3000) * 7919L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key = 0; key < 3000 * 7919L; key += 7919L) {
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+        assertEquals(new ArrayList<>(expected.values()), values(map));
+    }
+
+    @Test
+    public void remove_inProbeChain() {
+        // Keys that all land in one slot, so each probes past the ones before it
+        LongObjectMap<String> map = new LongObjectMap<>(64);
+        List<Long> chain = collidingKeys(8, 128);
+        for (long key : chain) {
+            map.put(key, "v" + key);
+        }
+
+        // Removing the head and middle leaves REMOVED slots the later keys must be found past
+        map.remove(chain.get(0));
+        map.remove(chain.get(3));
+        assertNull(map.get(chain.get(0)));
+        assertNull(map.get(chain.get(3)));
+        for (int i = 0; i < chain.size(); i++) {
+            if (i != 0 && i != 3) {
+                assertEquals("v" + chain.get(i), map.get(chain.get(i)));
+            }
+        }
+
+        // Putting a key that is still present must update it, not add a second copy in a freed slot
+        map.put(chain.get(5), "updated");
+        assertEquals(chain.size() - 2, map.size());
+        assertEquals("updated", map.get(chain.get(5)));
+
+        // A removed key comes back at the end of the order
+        map.put(chain.get(0), "again");
+        assertEquals(chain.size() - 1, map.size());
+        List<String> values = values(map);
+        assertEquals("again", values.get(values.size() - 1));
+    }
+
+    @Test
+    public void removeAll_thenReuse() {
+        LongObjectMap<Integer> map = new LongObjectMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), map.remove(i));
+        }
+        assertTrue(map.isEmpty());
+        assertFalse(map.iterator().hasNext());
+        map.put(7, 7);
+        assertEquals(Integer.valueOf(7), map.get(7));
+        assertEquals(1, map.size());
+    }
+
+    @Test(expected = java.util.ConcurrentModificationException.class)
+    public void iterator_failsOnChange() {
+        LongObjectMap<Integer> map = new LongObjectMap<>();
+        map.put(1, 1);
+        map.put(2, 2);
+        Iterator<Integer> iterator = map.iterator();
+        iterator.next();
+        map.remove(2);
+        iterator.next();
+    }
+
+    /**
+     * Keys whose first probe is the same slot of a table with the given number of slots
+     */
+    private static List<Long> collidingKeys(int count, int tableSize) {
+        Map<Integer, List<Long>> bySlot = new HashMap<>();
+        for (long key = 1; ; key++) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            int slot = (int) (h ^ (h >>> 32)) & (tableSize - 1);
+            List<Long> keys = bySlot.get(slot);
+            if (keys == null) {
+                keys = new ArrayList<>();
+                bySlot.put(slot, keys);
+            }
+            keys.add(key);
+            if (keys.size() == count) {
+                return keys;
+            }
+        }
+    }
+
+    private static <V> List<V> values(LongObjectMap<V> map) {
+        List<V> values = new ArrayList<>();
+        for (V value : map) {
+            values.add(value);
+        }
+        return values;
+    }
+}
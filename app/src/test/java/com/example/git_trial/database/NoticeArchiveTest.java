@@ -0,0 +1,206 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.NoticeCategory;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * The cold tier appends what changed, reloads to the same notices, and
+ * compacts away superseded records
+ */
+public class NoticeArchiveTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writes_appendOnlyWhatChanged() throws Exception {
+        File file = new File(folder.getRoot(), "notices.archive");
+        NoticeArchive archive = loaded(file);
+        List<Notice> notices = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Notice notice = notice("Archived " + i);
+            notices.add(notice);
+            archive.put(notice);
+        }
+        archive.writeIfDirty();
+        long length = file.length();
+
+        Notice restored = archive.remove(notices.get(3).getNoticeId());
+        archive.put(notice("One more"));
+        archive.writeIfDirty();
+        archive.forgetRemoved();
+        // Two small segments, not another copy of all 200 notices
+        assertTrue(file.length() - length < length / 4);
+
+        NoticeArchive reopened = loaded(file);
+        assertEquals(titles(archive.notices()), titles(reopened.notices()));
+        assertFalse(reopened.contains(restored.getNoticeId()));
+        assertEquals(200, reopened.notices().size());
+    }
+
+    @Test
+    public void removedNotice_staysInFileUntilForgotten() throws Exception {
+        File file = new File(folder.getRoot(), "notices.archive");
+        NoticeArchive archive = loaded(file);
+        Notice notice = notice("Moving back");
+        archive.put(notice);
+        archive.writeIfDirty();
+        archive.remove(notice.getNoticeId());
+        archive.writeIfDirty();
+
+        // The live set has not persisted it yet, so the archive still has it
+        assertTrue(loaded(file).contains(notice.getNoticeId()));
+        archive.forgetRemoved();
+        assertFalse(loaded(file).contains(notice.getNoticeId()));
+    }
+
+    @Test
+    public void noticeInLiveSet_isDroppedOnLoad() throws Exception {
+        File file = new File(folder.getRoot(), "notices.archive");
+        NoticeArchive archive = loaded(file);
+        Notice moved = notice("Moved back before a crash");
+        Notice kept = notice("Kept");
+        archive.put(moved);
+        archive.put(kept);
+        archive.writeIfDirty();
+
+        NoticeArchive reopened = new NoticeArchive(file);
+        reopened.load(moved.getNoticeId()::equals);
+        assertFalse(reopened.contains(moved.getNoticeId()));
+        assertTrue(reopened.contains(kept.getNoticeId()));
+        reopened.forgetRemoved();
+        assertFalse(loaded(file).contains(moved.getNoticeId()));
+    }
+
+    @Test
+    public void tornSegment_isDropped() throws Exception {
+        File file = new File(folder.getRoot(), "notices.archive");
+        NoticeArchive archive = loaded(file);
+        Notice kept = notice("Kept");
+        archive.put(kept);
+        archive.writeIfDirty();
+        long length = file.length();
+        archive.put(notice("Torn"));
+        archive.writeIfDirty();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(file.length() - 3);
+        }
+
+        NoticeArchive reopened = loaded(file);
+        assertEquals(Arrays.asList("Kept"), titles(reopened.notices()));
+        assertEquals(length, file.length());
+        Notice after = notice("After");
+        reopened.put(after);
+        reopened.writeIfDirty();
+        assertEquals(Arrays.asList("Kept", "After"), titles(loaded(file).notices()));
+    }
+
+    @Test
+    public void compaction_dropsSupersededRecords() throws Exception {
+        File file = new File(folder.getRoot(), "notices.archive");
+        NoticeArchive archive = loaded(file);
+        List<Notice> notices = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Notice notice = notice("Notice " + i);
+            notices.add(notice);
+            archive.put(notice);
+        }
+        archive.writeIfDirty();
+        for (int round = 0; round < 20 && !archive.needsCompaction(); round++) {
+            for (Notice notice : notices) {
+                notice.setTitle("Notice " + notice.getNoticeId() + " round " + round);
+                archive.put(notice);
+            }
+            archive.writeIfDirty();
+        }
+        assertTrue(archive.needsCompaction());
+        long before = file.length();
+
+        NoticeArchive.Compaction compaction = archive.startCompaction();
+        compaction.write();
+        // Written while the compaction ran, so copied onto its end
+        Notice late = notice("Late");
+        archive.put(late);
+        archive.writeIfDirty();
+        archive.finishCompaction(compaction);
+
+        assertFalse(archive.needsCompaction());
+        assertTrue(file.length() < before / 2);
+        NoticeArchive reopened = loaded(file);
+        assertEquals(titles(archive.notices()), titles(reopened.notices()));
+        assertTrue(reopened.contains(late.getNoticeId()));
+    }
+
+    @Test
+    public void compaction_droppedIfFileReplaced() throws Exception {
+        File file = new File(folder.getRoot(), "notices.archive");
+        NoticeArchive archive = loaded(file);
+        archive.put(notice("Before"));
+        archive.writeIfDirty();
+        NoticeArchive.Compaction compaction = archive.startCompaction();
+        compaction.write();
+        archive.replaceAll(Arrays.asList(notice("Replaced")));
+        archive.writeIfDirty();
+        archive.finishCompaction(compaction);
+
+        assertEquals(Arrays.asList("Replaced"), titles(loaded(file).notices()));
+    }
+
+    @Test
+    public void legacyFile_isReadAndRewritten() throws Exception {
+        File file = new File(folder.getRoot(), "notices.archive");
+        List<Notice> notices = Arrays.asList(notice("Old one"), notice("Old two"));
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(0x534e4241);
+            out.writeInt(1);
+            out.writeInt(notices.size());
+            for (Notice notice : notices) {
+                byte[] record = BinaryCodec.encodeNotice(notice);
+                out.writeInt(record.length);
+                out.write(record);
+            }
+        }
+
+        NoticeArchive archive = loaded(file);
+        assertEquals(Arrays.asList("Old one", "Old two"), titles(archive.notices()));
+        archive.writeIfDirty();
+        archive.put(notice("New"));
+        archive.writeIfDirty();
+        assertEquals(Arrays.asList("Old one", "Old two", "New"), titles(loaded(file).notices()));
+    }
+
+    private static NoticeArchive loaded(File file) {
+        NoticeArchive archive = new NoticeArchive(file);
+        archive.load(noticeId -> false);
+        return archive;
+    }
+
+    private static Notice notice(String title) {
+        Notice notice = new Notice(title, title + " description", NoticeCategory.COMMON, "teacher1", "John Doe");
+        notice.setDepartment("Computer Science");
+        notice.setArchived(true);
+        return notice;
+    }
+
+    private static List<String> titles(List<Notice> notices) {
+        List<String> titles = new ArrayList<>();
+        for (Notice notice : notices) {
+            titles.add(notice.getTitle());
+        }
+        return titles;
+    }
+}
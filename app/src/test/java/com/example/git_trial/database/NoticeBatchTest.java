@@ -0,0 +1,127 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.IdGenerator;
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.NoticeCategory;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * NoticeRepository.applyBatch is all-or-nothing, in memory and in the log
+ */
+public class NoticeBatchTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void failedBatch_changesNothing() throws Exception {
+        TestContext context = new TestContext(folder.getRoot());
+        NoticeDatabase db = new NoticeDatabase(context);
+        Notice kept = notice("Kept");
+        Notice edited = notice("Original title");
+        db.addNotice(kept);
+        db.addNotice(edited);
+        db.flush();
+        int noticeCount = db.getAllNotices().size();
+
+        Notice added = notice("Added");
+        // The last mutation targets a notice that does not exist, so the whole batch fails
+        assertFalse(db.applyBatch(Arrays.asList(
+                NoticeMutation.delete(kept.getNoticeId()),
+                NoticeMutation.add(added),
+                NoticeMutation.update(renamed(edited, "Changed title")),
+                NoticeMutation.update(renamed(notice("Missing"), "Never written")))));
+
+        assertUnchanged(db, kept, edited, added, noticeCount);
+        db.flush();
+        assertUnchanged(new NoticeDatabase(context), kept, edited, added, noticeCount);
+
+        NoticeLog log = new NoticeLog(new File(folder.getRoot(), "notices.log"));
+        assertFalse(log.deletedIds().contains(kept.getNoticeId()));
+        for (Notice notice : log.readAll()) {
+            assertNotEquals(added.getNoticeId(), notice.getNoticeId());
+            assertNotEquals("Changed title", notice.getTitle());
+        }
+    }
+
+    @Test
+    public void appliedBatch_survivesReopen() throws Exception {
+        TestContext context = new TestContext(folder.getRoot());
+        NoticeDatabase db = new NoticeDatabase(context);
+        Notice deleted = notice("Deleted");
+        Notice edited = notice("Original title");
+        db.addNotice(deleted);
+        db.addNotice(edited);
+        Notice added = notice("Added");
+
+        assertTrue(db.applyBatch(Arrays.asList(
+                NoticeMutation.delete(deleted.getNoticeId()),
+                NoticeMutation.add(added),
+                NoticeMutation.update(renamed(edited, "Changed title")))));
+        db.flush();
+
+        NoticeDatabase reopened = new NoticeDatabase(context);
+        assertNull(reopened.getNoticeById(deleted.getNoticeId()));
+        assertNotNull(reopened.getNoticeById(added.getNoticeId()));
+        assertEquals("Changed title", reopened.getNoticeById(edited.getNoticeId()).getTitle());
+    }
+
+    @Test
+    public void tornBatch_isDroppedOnReplay() throws Exception {
+        File file = new File(folder.getRoot(), "notices.log");
+        NoticeLog log = new NoticeLog(file);
+        Notice first = notice("First");
+        log.append(first);
+        log.flush();
+        long committedLength = file.length();
+
+        NoticeLog.Batch batch = new NoticeLog.Batch();
+        batch.put(notice("Second"));
+        batch.delete(first.getNoticeId());
+        log.append(batch);
+        log.flush();
+        // Cut the batch short, as a crash in the middle of the append would
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+
+        NoticeLog replayed = new NoticeLog(file);
+        assertEquals(committedLength, file.length());
+        List<Notice> notices = replayed.readAll();
+        assertEquals(1, notices.size());
+        assertEquals(first.getNoticeId(), notices.get(0).getNoticeId());
+        assertTrue(replayed.deletedIds().isEmpty());
+    }
+
+    private static void assertUnchanged(NoticeDatabase db, Notice kept, Notice edited, Notice added, int noticeCount) {
+        assertNotNull(db.getNoticeById(kept.getNoticeId()));
+        assertNull(db.getNoticeById(added.getNoticeId()));
+        assertEquals("Original title", db.getNoticeById(edited.getNoticeId()).getTitle());
+        assertEquals(noticeCount, db.getAllNotices().size());
+    }
+
+    private static Notice notice(String title) {
+        Notice notice = new Notice(title, title + " description", NoticeCategory.COMMON, "teacher1", "John Doe");
+        notice.setDepartment("Computer Science");
+        return notice;
+    }
+
+    /**
+     * A separate copy of a notice with a new title, as an edit screen would submit it
+     */
+    private static Notice renamed(Notice notice, String title) {
+        Notice copy = notice(title);
+        copy.setNoticeId(notice.getNoticeId());
+        copy.setCreatedAt(notice.getCreatedAt());
+        return copy;
+    }
+}
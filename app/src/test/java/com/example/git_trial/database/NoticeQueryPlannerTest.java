@@ -0,0 +1,347 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Audience;
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.NoticeCategory;
+import com.example.git_trial.model.StringDictionary;
+import com.example.git_trial.model.User;
+import com.example.git_trial.model.UserRole;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+/**
+ * Queries and paged reads give the same notices, in the same order, as a
+ * brute-force filter and sort over every notice in the store
+ */
+public class NoticeQueryPlannerTest {
+    private static final int NOTICE_COUNT = 1500;
+    // More departments than there are Audience bits, so the last ones share SHARED_DEPARTMENTS
+    private static final int DEPARTMENT_COUNT = 70;
+    private static final int CREATOR_COUNT = 12;
+    private static final String[] WORDS = {"exam", "holiday", "fees", "lab", "sports"};
+    private static final Comparator<Notice> NEWEST_FIRST = Comparator.comparingLong(Notice::getCreatedAt)
+            .reversed().thenComparing(Notice::getNoticeId);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Random random = new Random(7);
+    private final List<String> departments = new ArrayList<>();
+    private NoticeDatabase db;
+    private List<Notice> all;
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < DEPARTMENT_COUNT; i++) {
+            departments.add("Planner Dept " + i);
+        }
+        db = new NoticeDatabase(new TestContext(folder.getRoot()));
+        NoticeCategory[] categories = NoticeCategory.values();
+        for (int i = 0; i < NOTICE_COUNT; i++) {
+            Notice notice = new Notice("Notice " + i + " " + WORDS[random.nextInt(WORDS.length)],
+                    "About " + WORDS[random.nextInt(WORDS.length)], categories[random.nextInt(categories.length)],
+                    "creator" + random.nextInt(CREATOR_COUNT), "Creator");
+            // Few distinct times, so many notices tie on createdAt and order by ID
+            notice.setCreatedAt(1_000_000 + random.nextInt(NOTICE_COUNT / 3) * 1000L);
+            notice.setPriority(1 + random.nextInt(5));
+            notice.setDepartment(departments.get(random.nextInt(DEPARTMENT_COUNT)));
+            db.addNotice(notice);
+            if (random.nextInt(10) == 0) {
+                db.archiveNotice(notice.getNoticeId(), true);
+            }
+        }
+        // Every department has a live notice of its own, whichever of them end up sharing a bit
+        for (String department : departments) {
+            Notice notice = new Notice("For " + department, "Department notice", NoticeCategory.DEPARTMENT,
+                    "creator0", "Creator");
+            notice.setCreatedAt(1_000_000 + random.nextInt(NOTICE_COUNT / 3) * 1000L);
+            notice.setDepartment(department);
+            db.addNotice(notice);
+        }
+        all = db.getAllNotices();
+    }
+
+    @Test
+    public void randomQueries_matchBruteForce() {
+        NoticeCategory[] categories = NoticeCategory.values();
+        for (int trial = 0; trial < 300; trial++) {
+            NoticeQuery.Builder builder = NoticeQuery.builder();
+            if (random.nextBoolean()) {
+                builder.categories(categories[random.nextInt(categories.length)],
+                        categories[random.nextInt(categories.length)]);
+            }
+            if (random.nextInt(3) == 0) {
+                builder.departments(departments.get(random.nextInt(DEPARTMENT_COUNT)));
+            }
+            if (random.nextInt(4) == 0) {
+                builder.createdBy("creator" + random.nextInt(CREATOR_COUNT));
+            }
+            if (random.nextBoolean()) {
+                int min = 1 + random.nextInt(5);
+                builder.priorityBetween(min, min + random.nextInt(3));
+            }
+            if (random.nextBoolean()) {
+                long from = 1_000_000 + random.nextInt(NOTICE_COUNT * 1000);
+                builder.createdBetween(from, from + random.nextInt(NOTICE_COUNT * 500));
+            }
+            if (random.nextInt(4) == 0) {
+                builder.text(WORDS[random.nextInt(WORDS.length)]);
+            }
+            if (random.nextInt(3) == 0) {
+                builder.visibleTo(member(departments.get(random.nextInt(DEPARTMENT_COUNT))));
+            }
+            int tier = random.nextInt(5);
+            builder.archived(tier == 0).includeArchived(tier == 1)
+                    .sortBy(NoticeQuery.Sort.values()[random.nextInt(NoticeQuery.Sort.values().length)]);
+            if (random.nextBoolean()) {
+                builder.limit(1 + random.nextInt(40));
+            }
+            assertMatchesBruteForce(builder.build());
+        }
+    }
+
+    @Test
+    public void sorts_matchBruteForce() {
+        for (NoticeQuery.Sort sort : NoticeQuery.Sort.values()) {
+            assertMatchesBruteForce(NoticeQuery.builder().sortBy(sort).build());
+            assertMatchesBruteForce(NoticeQuery.builder().sortBy(sort).limit(25).build());
+            assertMatchesBruteForce(NoticeQuery.builder().sortBy(sort).archived(true).limit(25).build());
+            assertMatchesBruteForce(NoticeQuery.builder().sortBy(sort).includeArchived(true).limit(25).build());
+            assertMatchesBruteForce(NoticeQuery.builder().sortBy(sort)
+                    .createdBy("creator1").includeArchived(true).build());
+            assertMatchesBruteForce(NoticeQuery.builder().sortBy(sort)
+                    .categories(NoticeCategory.DEPARTMENT).priorityBetween(3, 5).limit(10).build());
+            assertMatchesBruteForce(NoticeQuery.builder().sortBy(sort)
+                    .createdBy("creator3").visibleTo(member(departments.get(DEPARTMENT_COUNT - 1))).build());
+        }
+    }
+
+    @Test
+    public void createdBetween_boundaries() {
+        List<Notice> live = db.query(NoticeQuery.builder().build());
+        for (int i = 0; i < 40; i++) {
+            long createdAt = live.get(random.nextInt(live.size())).getCreatedAt();
+            long[] bounds = {createdAt - 1, createdAt, createdAt + 1, createdAt + 5000};
+            for (long from : bounds) {
+                for (long until : bounds) {
+                    if (from > until) {
+                        continue;
+                    }
+                    for (NoticeQuery.Sort sort : NoticeQuery.Sort.values()) {
+                        assertMatchesBruteForce(NoticeQuery.builder().createdBetween(from, until).sortBy(sort).build());
+                    }
+                    assertMatchesBruteForce(NoticeQuery.builder().createdBetween(from, until)
+                            .categories(NoticeCategory.COMMON, NoticeCategory.DEPARTMENT).build());
+                }
+            }
+            // A notice created exactly at until is left out; one created at from is kept
+            for (Notice notice : db.query(NoticeQuery.builder().createdBetween(createdAt, createdAt + 1).build())) {
+                assertEquals(createdAt, notice.getCreatedAt());
+            }
+            assertFalse(db.query(NoticeQuery.builder().createdBetween(createdAt, createdAt + 1).build()).isEmpty());
+            assertTrue(db.query(NoticeQuery.builder().createdBetween(createdAt - 1, createdAt).build()).stream()
+                    .noneMatch(notice -> notice.getCreatedAt() == createdAt));
+        }
+    }
+
+    @Test
+    public void unknownStrings_matchNothingAndAreNotEncoded() {
+        String department = "Unknown department " + System.nanoTime();
+        String creator = "unknown-creator-" + System.nanoTime();
+        String known = departments.get(0);
+
+        assertTrue(db.query(NoticeQuery.builder().departments(department).build()).isEmpty());
+        assertTrue(db.query(NoticeQuery.builder().departments(department)
+                .categories(NoticeCategory.DEPARTMENT).build()).isEmpty());
+        assertTrue(db.query(NoticeQuery.builder().departments(department).archived(true).build()).isEmpty());
+        assertTrue(db.query(NoticeQuery.builder().createdBy(creator).build()).isEmpty());
+        assertTrue(db.query(NoticeQuery.builder().createdBy(creator).includeArchived(true).build()).isEmpty());
+        assertTrue(db.getNoticesByCreator(creator, null, 10).getNotices().isEmpty());
+        assertMatchesBruteForce(NoticeQuery.builder().departments(department, known).build());
+        assertMatchesBruteForce(NoticeQuery.builder().departments(department, known)
+                .categories(NoticeCategory.DEPARTMENT).build());
+
+        assertEquals(StringDictionary.NONE, StringDictionary.lookup(department));
+        assertEquals(StringDictionary.NONE, StringDictionary.lookup(creator));
+    }
+
+    @Test
+    public void sharedDepartmentBit_onlyMatchesOwnDepartment() {
+        List<String> shared = new ArrayList<>();
+        for (String department : departments) {
+            if (Audience.department(StringDictionary.encode(department)) == Audience.SHARED_DEPARTMENTS) {
+                shared.add(department);
+            }
+        }
+        assertTrue(shared.size() >= 2);
+
+        for (String department : shared) {
+            User user = member(department);
+            List<Notice> expected = bruteForce(notice -> notice.isVisibleTo(user), NEWEST_FIRST, Integer.MAX_VALUE);
+            assertTrue(expected.stream().anyMatch(notice -> department.equals(notice.getDepartment())
+                    && notice.getCategory() == NoticeCategory.DEPARTMENT));
+            for (Notice notice : expected) {
+                long audience = Audience.forNotice(notice.getCategory(), notice.getDepartmentCode());
+                assertTrue(audience == Audience.EVERYONE || department.equals(notice.getDepartment()));
+            }
+            assertEquals(ids(expected), ids(db.getNoticesForUser(user)));
+            assertEquals(ids(expected), ids(db.query(NoticeQuery.builder().visibleTo(user).build())));
+        }
+    }
+
+    @Test
+    public void keysetCursors_walkEveryNoticeOnce() {
+        for (int pageSize : new int[] {1, 7, 50}) {
+            for (NoticeCategory category : NoticeCategory.values()) {
+                assertPagesMatch(bruteForce(notice -> !notice.isArchived() && notice.getCategory() == category,
+                        NEWEST_FIRST, Integer.MAX_VALUE),
+                        cursor -> db.getNoticesByCategory(category, cursor, pageSize));
+            }
+            for (String department : new String[] {departments.get(0), departments.get(DEPARTMENT_COUNT - 1)}) {
+                User user = member(department);
+                assertPagesMatch(bruteForce(notice -> notice.isVisibleTo(user), NEWEST_FIRST, Integer.MAX_VALUE),
+                        cursor -> db.getNoticesForUser(user, cursor, pageSize));
+            }
+            assertPagesMatch(bruteForce(notice -> "creator5".equals(notice.getCreatedBy()), NEWEST_FIRST,
+                    Integer.MAX_VALUE), cursor -> db.getNoticesByCreator("creator5", cursor, pageSize));
+            assertPagesMatch(bruteForce(Notice::isArchived, NEWEST_FIRST, Integer.MAX_VALUE),
+                    cursor -> db.getArchivedNotices(cursor, pageSize));
+        }
+    }
+
+    @Test
+    public void queryStart_walksEveryResultOnce() {
+        User member = member(departments.get(DEPARTMENT_COUNT - 1));
+        for (NoticeQuery.Sort sort : NoticeQuery.Sort.values()) {
+            List<NoticeQuery> queries = new ArrayList<>();
+            queries.add(NoticeQuery.builder().sortBy(sort).build());
+            queries.add(NoticeQuery.builder().sortBy(sort).archived(true).build());
+            queries.add(NoticeQuery.builder().sortBy(sort).createdBy("creator2").includeArchived(true).build());
+            queries.add(NoticeQuery.builder().sortBy(sort).visibleTo(member).build());
+            queries.add(NoticeQuery.builder().sortBy(sort).categories(NoticeCategory.DEPARTMENT)
+                    .createdBetween(1_100_000, 1_300_000).build());
+            for (NoticeQuery query : queries) {
+                List<Notice> walked = new ArrayList<>();
+                NoticeQuery page = query.withLimit(9);
+                while (true) {
+                    List<Notice> notices = db.query(page);
+                    walked.addAll(notices);
+                    if (notices.size() < 9) {
+                        break;
+                    }
+                    Notice last = notices.get(notices.size() - 1);
+                    page = page.after(new NoticeIndex.Key(last.getCreatedAt(), last.getNoticeId()), last.getPriority());
+                }
+                assertEquals(query.toString(), ids(bruteForce(query)), ids(walked));
+            }
+        }
+    }
+
+    @Test
+    public void queryStart_outsideDateRange() {
+        NoticeQuery query = NoticeQuery.builder().createdBetween(1_100_000, 1_200_000).build();
+        List<Notice> expected = bruteForce(query);
+        // Newest first: a start newer than the range skips nothing, one older than it leaves nothing
+        assertEquals(ids(expected), ids(db.query(query.after(new NoticeIndex.Key(1_500_000, ""), 0))));
+        assertTrue(db.query(query.after(new NoticeIndex.Key(1_000_000, ""), 0)).isEmpty());
+        NoticeQuery oldestFirst = NoticeQuery.builder().createdBetween(1_100_000, 1_200_000)
+                .sortBy(NoticeQuery.Sort.OLDEST_FIRST).build();
+        assertEquals(ids(bruteForce(oldestFirst)),
+                ids(db.query(oldestFirst.after(new NoticeIndex.Key(1_000_000, ""), 0))));
+        assertTrue(db.query(oldestFirst.after(new NoticeIndex.Key(1_500_000, ""), 0)).isEmpty());
+    }
+
+    private interface PageReader {
+        NoticePage read(String cursor);
+    }
+
+    /**
+     * Follow the cursors from the first page to the last and compare the notices seen
+     */
+    private static void assertPagesMatch(List<Notice> expected, PageReader reader) {
+        List<Notice> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            NoticePage page = reader.read(cursor);
+            walked.addAll(page.getNotices());
+            cursor = page.getNextCursor();
+            assertTrue("cursor walk did not end", walked.size() <= expected.size());
+        } while (cursor != null);
+        assertEquals(ids(expected), ids(walked));
+    }
+
+    private void assertMatchesBruteForce(NoticeQuery query) {
+        assertEquals(query.toString(), ids(bruteForce(query)), ids(db.query(query)));
+    }
+
+    private List<Notice> bruteForce(NoticeQuery query) {
+        Set<NoticeCategory> categories = query.getCategories().isEmpty()
+                ? EnumSet.allOf(NoticeCategory.class) : query.getCategories();
+        Set<String> departments = query.getDepartments();
+        Set<String> textMatches = new HashSet<>();
+        if (query.getText() != null) {
+            for (Notice notice : all) {
+                if (NoticeSearchIndex.matches(query.getText(), notice)) {
+                    textMatches.add(notice.getNoticeId());
+                }
+            }
+        }
+        Predicate<Notice> filter = notice -> (query.includesArchived() || notice.isArchived() == query.isArchived())
+                && categories.contains(notice.getCategory())
+                && (departments.isEmpty() || departments.contains(notice.getDepartment()))
+                && (query.getCreatedBy() == null || query.getCreatedBy().equals(notice.getCreatedBy()))
+                && query.acceptsPriority(notice.getPriority())
+                && query.acceptsCreatedAt(notice.getCreatedAt())
+                && (query.getText() == null || textMatches.contains(notice.getNoticeId()))
+                && (query.getVisibleTo() == null || notice.isVisibleTo(query.getVisibleTo()));
+        Comparator<Notice> order;
+        switch (query.getSort()) {
+            case OLDEST_FIRST:
+                order = NEWEST_FIRST.reversed();
+                break;
+            case PRIORITY:
+                order = Comparator.comparingInt(Notice::getPriority).reversed().thenComparing(NEWEST_FIRST);
+                break;
+            default:
+                order = NEWEST_FIRST;
+        }
+        return bruteForce(filter, order, query.getLimit());
+    }
+
+    private List<Notice> bruteForce(Predicate<Notice> filter, Comparator<Notice> order, int limit) {
+        List<Notice> matches = new ArrayList<>();
+        for (Notice notice : all) {
+            if (filter.test(notice)) {
+                matches.add(notice);
+            }
+        }
+        matches.sort(order);
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    private static List<String> ids(List<Notice> notices) {
+        List<String> ids = new ArrayList<>(notices.size());
+        for (Notice notice : notices) {
+            ids.add(notice.getNoticeId());
+        }
+        return ids;
+    }
+
+    private static User member(String department) {
+        return new User("student", "student@cs.edu", "secret", UserRole.STUDENT, "Student", department);
+    }
+}
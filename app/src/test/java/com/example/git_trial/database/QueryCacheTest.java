@@ -0,0 +1,127 @@
+package com.example.git_trial.database;
+
+import com.example.git_trial.model.Notice;
+import com.example.git_trial.model.NoticeCategory;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Cached query results never outlive the store generation they were computed at
+ */
+public class QueryCacheTest {
+    private static final String CREATOR = "cache-test-teacher";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private long createdAt = System.currentTimeMillis();
+
+    @Test
+    public void olderGeneration_isNeverReturned() {
+        QueryCache cache = new QueryCache(4);
+        QueryCache.Key key = new QueryCache.Key("category:COMMON", 0, 0);
+        cache.put(key, 1, "at 1");
+
+        assertEquals("at 1", cache.get(key, 1));
+        assertNull(cache.get(key, 2));
+        // The stale entry was dropped, so going back to its generation does not revive it
+        assertNull(cache.get(key, 1));
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(2, cache.stats().getMisses());
+        assertEquals(0, cache.stats().getEntries());
+    }
+
+    @Test
+    public void keys_separateAudiences() {
+        QueryCache cache = new QueryCache(4);
+        cache.put(new QueryCache.Key("feed", 1, 0), 1, "students");
+
+        assertNull(cache.get(new QueryCache.Key("feed", 2, 0), 1));
+        assertNull(cache.get(new QueryCache.Key("feed", 1, 7), 1));
+        assertEquals("students", cache.get(new QueryCache.Key("feed", 1, 0), 1));
+    }
+
+    @Test
+    public void leastRecentlyUsed_isEvicted() {
+        QueryCache cache = new QueryCache(2);
+        QueryCache.Key a = new QueryCache.Key("a", 0, 0);
+        QueryCache.Key b = new QueryCache.Key("b", 0, 0);
+        cache.put(a, 1, "a");
+        cache.put(b, 1, "b");
+        cache.get(a, 1);
+        cache.put(new QueryCache.Key("c", 0, 0), 1, "c");
+
+        assertEquals("a", cache.get(a, 1));
+        assertNull(cache.get(b, 1));
+        assertEquals(2, cache.stats().getEntries());
+    }
+
+    @Test
+    public void everyWrite_bumpsGeneration() {
+        NoticeDatabase db = new NoticeDatabase(new TestContext(folder.getRoot()));
+        Notice first = notice("First");
+        db.addNotice(first);
+        assertTitles(db, "First");
+        assertTitles(db, "First");
+        assertEquals(1, db.getQueryCacheStats().getHits());
+
+        Notice second = notice("Second");
+        db.addNotice(second);
+        assertStaleThenCached(db, "Second", "First");
+
+        second.setTitle("Second edited");
+        db.updateNotice(second);
+        assertStaleThenCached(db, "Second edited", "First");
+
+        db.archiveNotice(first.getNoticeId(), true);
+        assertStaleThenCached(db, "Second edited");
+
+        db.applyBatch(Collections.singletonList(NoticeMutation.add(notice("Third"))));
+        assertStaleThenCached(db, "Third", "Second edited");
+
+        db.deleteNotice(second.getNoticeId());
+        assertStaleThenCached(db, "Third");
+    }
+
+    /**
+     * The first read after a write misses and sees the write; a second read hits
+     */
+    private static void assertStaleThenCached(NoticeDatabase db, String... titles) {
+        long misses = db.getQueryCacheStats().getMisses();
+        long hits = db.getQueryCacheStats().getHits();
+        assertTitles(db, titles);
+        assertEquals(misses + 1, db.getQueryCacheStats().getMisses());
+        assertTitles(db, titles);
+        assertEquals(hits + 1, db.getQueryCacheStats().getHits());
+    }
+
+    /**
+     * Titles of this test's live common notices, leaving out the sample notices a new store starts with
+     */
+    private static void assertTitles(NoticeDatabase db, String... titles) {
+        List<String> actual = new ArrayList<>();
+        for (Notice notice : db.getNoticesByCategory(NoticeCategory.COMMON)) {
+            if (CREATOR.equals(notice.getCreatedBy())) {
+                actual.add(notice.getTitle());
+            }
+        }
+        assertEquals(Arrays.asList(titles), actual);
+    }
+
+    private Notice notice(String title) {
+        Notice notice = new Notice(title, title + " description", NoticeCategory.COMMON, CREATOR, "John Doe");
+        notice.setDepartment("Computer Science");
+        // One notice per millisecond, so newest first is the order they were made in
+        notice.setCreatedAt(++createdAt);
+        return notice;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.git_trial.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * IdGenerator keeps IDs unique and increasing when a millisecond's sequence runs out or the clock steps back
+ */
+public class IdGeneratorTest {
+    // More than the 4096 IDs the 12-bit sequence allows in one millisecond
+    private static final int BURST = 3 * 4096 + 17;
+
+    @Test
+    public void sequenceOverflow_borrowsNextMillisecond() {
+        // Ahead of every ID the other tests made, so all of these share one clock reading
+        long now = System.currentTimeMillis() + 60_000;
+        long previous = IdGenerator.next(now);
+        for (int i = 0; i < BURST; i++) {
+            long id = IdGenerator.next(now);
+            assertTrue("ID " + i + " did not increase", id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void clockBackwards_keepsIncreasing() {
+        long now = System.currentTimeMillis() + 120_000;
+        long previous = IdGenerator.next(now);
+        for (long stepBack : new long[] {1, 1_000, 3_600_000}) {
+            for (int i = 0; i < 100; i++) {
+                long id = IdGenerator.next(now - stepBack);
+                assertTrue("ID after stepping back " + stepBack + " ms did not increase", id > previous);
+                previous = id;
+            }
+        }
+        // Once the clock catches up again, IDs carry on from where it was
+        long id = IdGenerator.next(now + 1_000);
+        assertTrue(id > previous);
+    }
+
+    @Test
+    public void next_parsesBack() {
+        String id = IdGenerator.nextString();
+        assertEquals(Long.parseLong(id), IdGenerator.parse(id));
+        assertEquals(IdGenerator.NO_ID, IdGenerator.parse("0" + id));
+        assertEquals(IdGenerator.NO_ID, IdGenerator.parse("admin"));
+    }
+}